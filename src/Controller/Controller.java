@@ -284,11 +284,11 @@ public class Controller {
     }
 
     /**
-     * This method determines whether there are still any actions to be redone or not by checking the model's last change.
-     * @return if the model's last change is null, then no more actions can be redone (and the button will be greyed out in the view)
+     * This method determines whether there are still any actions to be redone or not by checking the model's history.
+     * @return if the history has nothing to redo, then no more actions can be redone (and the button will be greyed out in the view)
      */
     public boolean stillRedo(){
-        return model.getLastChange() != null;
+        return model.getHistory().canRedo();
     }
 
     /**
@@ -363,42 +363,18 @@ public class Controller {
 
     /**
      * This method is called when the user clicks on the canvas, therefore trying to select a shape.
+     * The shape drawn on top at that point is selected, using the shape's exact outline rather than its bounding box.
      * @param mx - the mouse's x coordinate
      * @param my - the mouse's y coordinate
      * @return if the mouse coordinates overlap a shape in the model, that shape is returned, or else null is returned as nothing is selected
      */
     public Shape selectShape(int mx, int my){
-
-        int index = 0;
-
-        //This iterates over all the shapes currently in the model
-        for (Shape n : model.getShapes()) {
-
-            //This finds the minimum and maximum x and y coordinates of the shape
-            //because the starting coordinates might not necessarily be smaller than the ending ones
-            //if the user draws from right to left or top to bottom
-            int minX = Math.min(n.getStartX(), n.getEndX());
-            int minY = Math.min(n.getStartY(), n.getEndY());
-            int maxX = Math.max(n.getStartX(), n.getEndX());
-            int maxY = Math.max(n.getStartY(), n.getEndY());
-
-            //If the mouse's coordinate is greater than the smallest shape coordinate and less than the largest shape coordinate, it's in that shape
-            boolean inX = false, inY = false;
-            if((mx < maxX) && (mx > minX)) {
-                inX = true;
-            }
-            if((my < maxY) && (my > minY)) {
-                inY = true;
-            }
-
-            if(inX && inY) {
-                return n;
-            }
-            index++;
-        }
+        int slot = model.shapeAt(mx, my);
 
         //If the mouse is not overlapping any shape, null is returned
-        return null;
+        if(slot == -1)
+            return null;
+        return model.getStore().get(slot);
     }
 
     /**
@@ -412,7 +388,7 @@ public class Controller {
     }
 
     /**
-     * This method clears the model's lastChange stack, deleting all possible redo states.
+     * This method clears the commands the model can redo, deleting all possible redo states.
      */
     public void clearRedo(){
         model.clearRedo();
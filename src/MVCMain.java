@@ -1,5 +1,7 @@
 import Controller.Controller;
+import Models.ColumnarShapeStore;
 import Models.Model;
+import Models.OffHeapShapeStore;
 import Views.MainWindow;
 
 /**
@@ -9,10 +11,22 @@ public class MVCMain {
 
     /**
      * This is the main method to start the application, it creates a new model and passes that to a new controller and then creates a new view connected to both.
+     * The model's shape store can be chosen with the 'store' system property: columnar, offheap, or list (the default).
      * @param argv - no arguments needed in this case.
      */
     public static void main (String argv[]) {
-        Model model = new Model();
+        Model model;
+        switch (System.getProperty("store", "list")) {
+            case "columnar":
+                model = new Model(new ColumnarShapeStore());
+                break;
+            case "offheap":
+                model = new Model(new OffHeapShapeStore());
+                break;
+            default:
+                model = new Model();
+                break;
+        }
         Controller controller = new Controller(model);
         new MainWindow(controller, model);
     }
@@ -3,13 +3,15 @@ package Models;
 import java.io.Serializable;
 
 /**
- * This class represents an action by the user.
- * It consists of a shape, and the type of action performed on it
+ * This class represents an action by the user, as the model's history kept them before it was made of commands.
+ * It consists of a shape, the ID of the shape it was performed on, and the type of action performed on it.
+ * It is only used to load files saved back then, whose actions are turned into commands.
  * @author malaksadek
  */
 public class Action implements Serializable {
     private static final long serialVersionUID = 1;
     Shape s;
+    long id;
     char type; //e - edit, c - create, d - delete
 
     /**
@@ -19,6 +21,7 @@ public class Action implements Serializable {
      */
     Action(Shape s, char type){
         this.s = s;
+        this.id = s.getId();
         this.type = type;
     }
 
@@ -28,6 +31,7 @@ public class Action implements Serializable {
      */
     Action(Action a){
         this.s = a.s;
+        this.id = a.id;
         this.type = a.type;
     }
 
@@ -39,6 +43,14 @@ public class Action implements Serializable {
         return s;
     }
 
+    /**
+     * Getter method for the ID of the shape the action was performed on.
+     * @return the shape ID associated with the action
+     */
+    public long getId() {
+        return id;
+    }
+
     /**
      * Getter method for the action's type.
      * @return the type associated with the action
@@ -0,0 +1,66 @@
+package Models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class is the command for a batch of changes made between Model.beginBatch and Model.commit, which are undone and redone as one.
+ * It keeps the batch's commands in the order they were done, and undoes them in the opposite order.
+ * @author malaksadek
+ */
+class BatchCommand extends Command {
+    private static final long serialVersionUID = 1;
+    private final ArrayList<Command> commands;
+
+    /**
+     * Constructor for the class.
+     * @param commands - the batch's commands, in the order they were done
+     */
+    BatchCommand(ArrayList<Command> commands) {
+        this.commands = commands;
+    }
+
+    /**
+     * Getter method for the batch's commands.
+     * @return the commands, in the order they were done
+     */
+    List<Command> getCommands() {
+        return Collections.unmodifiableList(commands);
+    }
+
+    @Override
+    void apply(Model model) {
+        for(Command command : commands)
+            command.apply(model);
+    }
+
+    @Override
+    void revert(Model model) {
+        for(int i = commands.size() - 1; i >= 0; i--)
+            commands.get(i).revert(model);
+    }
+
+    /**
+     * Getter method for the ID of the shape the batch's last command was performed on.
+     * @return the shape's ID
+     */
+    @Override
+    public long getId() {
+        return commands.get(commands.size() - 1).getId();
+    }
+
+    /**
+     * Getter method for the shape the batch's last command was performed on.
+     * @return the shape
+     */
+    @Override
+    public Shape getShape() {
+        return commands.get(commands.size() - 1).getShape();
+    }
+
+    @Override
+    public char getType() {
+        return 'b';
+    }
+}
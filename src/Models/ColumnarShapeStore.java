@@ -0,0 +1,269 @@
+package Models;
+
+import java.awt.*;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class is a shape store that keeps each shape attribute in its own primitive array instead of keeping shape objects.
+ * Colors are packed as ARGB ints and the shape type as a byte tag, which takes a fraction of the memory of shape objects
+ * and lets rendering and hit-testing scan the shapes attribute by attribute.
+ * Shapes are created from the arrays when they are asked for, so changes to them have to go through the model.
+ * @author malaksadek
+ */
+public class ColumnarShapeStore implements ShapeStore {
+    private static final long serialVersionUID = 1;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final byte HAS_FILL = 1, HAS_STROKE = 2;
+
+    private transient int size;
+    private transient long[] ids;
+    private transient byte[] types, flags;
+    private transient int[] startX, startY, endX, endY, strokeWidth, fillColor, strokeColor, extra;
+
+    /**
+     * Constructor for the class, creates an empty store.
+     */
+    public ColumnarShapeStore() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * This method creates the arrays with the given capacity.
+     * @param capacity - the number of shapes the arrays can hold
+     */
+    private void allocate(int capacity) {
+        ids = new long[capacity];
+        types = new byte[capacity];
+        flags = new byte[capacity];
+        startX = new int[capacity];
+        startY = new int[capacity];
+        endX = new int[capacity];
+        endY = new int[capacity];
+        strokeWidth = new int[capacity];
+        fillColor = new int[capacity];
+        strokeColor = new int[capacity];
+        extra = new int[capacity];
+    }
+
+    /**
+     * This method grows the arrays, doubling their capacity, if they are full.
+     */
+    private void ensureCapacity() {
+        if(size < ids.length)
+            return;
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        types = Arrays.copyOf(types, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        startX = Arrays.copyOf(startX, capacity);
+        startY = Arrays.copyOf(startY, capacity);
+        endX = Arrays.copyOf(endX, capacity);
+        endY = Arrays.copyOf(endY, capacity);
+        strokeWidth = Arrays.copyOf(strokeWidth, capacity);
+        fillColor = Arrays.copyOf(fillColor, capacity);
+        strokeColor = Arrays.copyOf(strokeColor, capacity);
+        extra = Arrays.copyOf(extra, capacity);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Shape get(int slot) {
+        checkSlot(slot);
+        return ShapeTypes.create(ids[slot], types[slot], startX[slot], startY[slot], endX[slot], endY[slot], strokeWidth[slot],
+                (flags[slot] & HAS_FILL) != 0 ? new Color(fillColor[slot], true) : null,
+                (flags[slot] & HAS_STROKE) != 0 ? new Color(strokeColor[slot], true) : null,
+                extra[slot]);
+    }
+
+    @Override
+    public void add(Shape s) {
+        ensureCapacity();
+        write(size, s);
+        size++;
+    }
+
+    @Override
+    public void set(int slot, Shape s) {
+        checkSlot(slot);
+        write(slot, s);
+    }
+
+    /**
+     * This method writes a shape's attributes into a slot of the arrays.
+     * @param slot - the slot to write to
+     * @param s - the shape to write
+     */
+    private void write(int slot, Shape s) {
+        ids[slot] = s.getId();
+        types[slot] = ShapeTypes.tagOf(s.getShapeType());
+        startX[slot] = s.getStartX();
+        startY[slot] = s.getStartY();
+        endX[slot] = s.getEndX();
+        endY[slot] = s.getEndY();
+        strokeWidth[slot] = s.getStrokeWidth();
+        byte f = 0;
+        if(s.getFillColor() != null) {
+            f |= HAS_FILL;
+            fillColor[slot] = s.getFillColor().getRGB();
+        }
+        if(s.getStrokeColor() != null) {
+            f |= HAS_STROKE;
+            strokeColor[slot] = s.getStrokeColor().getRGB();
+        }
+        flags[slot] = f;
+        extra[slot] = ShapeTypes.extraOf(s);
+    }
+
+    @Override
+    public void remove(int slot) {
+        checkSlot(slot);
+        int moved = size - slot - 1;
+        System.arraycopy(ids, slot + 1, ids, slot, moved);
+        System.arraycopy(types, slot + 1, types, slot, moved);
+        System.arraycopy(flags, slot + 1, flags, slot, moved);
+        System.arraycopy(startX, slot + 1, startX, slot, moved);
+        System.arraycopy(startY, slot + 1, startY, slot, moved);
+        System.arraycopy(endX, slot + 1, endX, slot, moved);
+        System.arraycopy(endY, slot + 1, endY, slot, moved);
+        System.arraycopy(strokeWidth, slot + 1, strokeWidth, slot, moved);
+        System.arraycopy(fillColor, slot + 1, fillColor, slot, moved);
+        System.arraycopy(strokeColor, slot + 1, strokeColor, slot, moved);
+        System.arraycopy(extra, slot + 1, extra, slot, moved);
+        size--;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public List<Shape> asList() {
+        return new ShapeStoreList(this);
+    }
+
+    /**
+     * This method checks that a slot holds a shape.
+     * @param slot - the slot to check
+     * @throws IndexOutOfBoundsException if the slot is empty
+     */
+    private void checkSlot(int slot) {
+        if(slot < 0 || slot >= size)
+            throw new IndexOutOfBoundsException("Slot: " + slot + ", Size: " + size);
+    }
+
+    ////////////// Attribute getter methods //////////////
+
+    @Override
+    public long getId(int slot) {
+        return ids[slot];
+    }
+
+    @Override
+    public byte getType(int slot) {
+        return types[slot];
+    }
+
+    @Override
+    public int getStartX(int slot) {
+        return startX[slot];
+    }
+
+    @Override
+    public int getStartY(int slot) {
+        return startY[slot];
+    }
+
+    @Override
+    public int getEndX(int slot) {
+        return endX[slot];
+    }
+
+    @Override
+    public int getEndY(int slot) {
+        return endY[slot];
+    }
+
+    @Override
+    public int getStrokeWidth(int slot) {
+        return strokeWidth[slot];
+    }
+
+    @Override
+    public boolean hasFillColor(int slot) {
+        return (flags[slot] & HAS_FILL) != 0;
+    }
+
+    @Override
+    public int getFillColor(int slot) {
+        return fillColor[slot];
+    }
+
+    @Override
+    public boolean hasStrokeColor(int slot) {
+        return (flags[slot] & HAS_STROKE) != 0;
+    }
+
+    @Override
+    public int getStrokeColor(int slot) {
+        return strokeColor[slot];
+    }
+
+    @Override
+    public int getExtra(int slot) {
+        return extra[slot];
+    }
+
+    ////////////// Serialization methods //////////////
+
+    //Only the used part of each array is written, so saved files don't contain the spare capacity
+
+    /**
+     * This method writes the store to a stream.
+     * @param out - the stream the store is written to
+     * @throws IOException
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        out.writeObject(Arrays.copyOf(ids, size));
+        out.writeObject(Arrays.copyOf(types, size));
+        out.writeObject(Arrays.copyOf(flags, size));
+        for(int[] column : new int[][] { startX, startY, endX, endY, strokeWidth, fillColor, strokeColor, extra })
+            out.writeObject(Arrays.copyOf(column, size));
+    }
+
+    /**
+     * This method reads the store from a stream.
+     * @param in - the stream the store is read from
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        size = in.readInt();
+        ids = (long[]) in.readObject();
+        types = (byte[]) in.readObject();
+        flags = (byte[]) in.readObject();
+        startX = (int[]) in.readObject();
+        startY = (int[]) in.readObject();
+        endX = (int[]) in.readObject();
+        endY = (int[]) in.readObject();
+        strokeWidth = (int[]) in.readObject();
+        fillColor = (int[]) in.readObject();
+        strokeColor = (int[]) in.readObject();
+        extra = (int[]) in.readObject();
+        if(size == 0) {
+            allocate(INITIAL_CAPACITY);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package Models;
+
+import java.io.Serializable;
+
+/**
+ * This class is one step in the model's history: something the user did which can be undone and redone.
+ * Each command keeps exactly what it needs to apply or invert itself and finds its shape by ID,
+ * so undoing or redoing it never looks through the model's shapes.
+ * @author malaksadek
+ */
+public abstract class Command implements Serializable {
+    private static final long serialVersionUID = 1;
+
+    /**
+     * This method does the command to the model, when it is redone.
+     * @param model - the model to change
+     */
+    abstract void apply(Model model);
+
+    /**
+     * This method undoes the command, putting the model back the way it was before the command.
+     * @param model - the model to change
+     */
+    abstract void revert(Model model);
+
+    /**
+     * Getter method for the ID of the shape the command was performed on.
+     * @return the shape's ID
+     */
+    public abstract long getId();
+
+    /**
+     * Getter method for the shape the command was performed on, in the state the command left it in,
+     * or as it was before it was deleted.
+     * @return the shape
+     */
+    public abstract Shape getShape();
+
+    /**
+     * Getter method for the command's type.
+     * @return c - create shape, e - edit shape, d - delete shape, b - a batch of commands
+     */
+    public abstract char getType();
+}
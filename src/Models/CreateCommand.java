@@ -0,0 +1,43 @@
+package Models;
+
+/**
+ * This class is the command for drawing a shape, which is undone by removing the shape again.
+ * @author malaksadek
+ */
+class CreateCommand extends Command {
+    private static final long serialVersionUID = 1;
+    private final Shape shape;
+
+    /**
+     * Constructor for the class.
+     * @param shape - the shape that was drawn
+     */
+    CreateCommand(Shape shape) {
+        this.shape = shape;
+    }
+
+    @Override
+    void apply(Model model) {
+        model.insertShape(shape);
+    }
+
+    @Override
+    void revert(Model model) {
+        model.removeShape(shape.getId());
+    }
+
+    @Override
+    public long getId() {
+        return shape.getId();
+    }
+
+    @Override
+    public Shape getShape() {
+        return shape;
+    }
+
+    @Override
+    public char getType() {
+        return 'c';
+    }
+}
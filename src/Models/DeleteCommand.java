@@ -0,0 +1,43 @@
+package Models;
+
+/**
+ * This class is the command for deleting a shape, which is undone by adding the shape back on top.
+ * @author malaksadek
+ */
+class DeleteCommand extends Command {
+    private static final long serialVersionUID = 1;
+    private final Shape shape;
+
+    /**
+     * Constructor for the class.
+     * @param shape - the shape that was deleted
+     */
+    DeleteCommand(Shape shape) {
+        this.shape = shape;
+    }
+
+    @Override
+    void apply(Model model) {
+        model.removeShape(shape.getId());
+    }
+
+    @Override
+    void revert(Model model) {
+        model.insertShape(shape);
+    }
+
+    @Override
+    public long getId() {
+        return shape.getId();
+    }
+
+    @Override
+    public Shape getShape() {
+        return shape;
+    }
+
+    @Override
+    public char getType() {
+        return 'd';
+    }
+}
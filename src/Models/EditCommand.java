@@ -0,0 +1,97 @@
+package Models;
+
+/**
+ * This class is the command for changing a shape's color, position, size or stroke.
+ * Rather than copies of the shape before and after, it keeps the range of deltas the edit added to its history's edit log,
+ * one for each field that changed, and undoes or redoes them on the shape with its ID.
+ * @author malaksadek
+ */
+class EditCommand extends Command {
+    private static final long serialVersionUID = 2;
+    private final History history;
+    private final long id;
+    private final int count;
+    private int first;
+
+    /**
+     * Constructor for the class.
+     * @param history - the history whose edit log holds the deltas
+     * @param id - the ID of the shape edited
+     * @param first - the edit's first delta in the log
+     * @param count - the number of deltas the edit added
+     */
+    EditCommand(History history, long id, int first, int count) {
+        this.history = history;
+        this.id = id;
+        this.first = first;
+        this.count = count;
+    }
+
+    @Override
+    void apply(Model model) {
+        Shape current = model.getShape(id);
+        if(current != null)
+            model.replaceShape(id, history.getEdits().apply(current, first, count, false));
+    }
+
+    @Override
+    void revert(Model model) {
+        Shape current = model.getShape(id);
+        if(current != null)
+            model.replaceShape(id, history.getEdits().apply(current, first, count, true));
+    }
+
+    /**
+     * Getter method for where the edit's deltas start in the edit log.
+     * @return the index of the edit's first delta
+     */
+    int getFirst() {
+        return first;
+    }
+
+    /**
+     * Setter method for where the edit's deltas start, for when the edit log is compacted.
+     * @param first - the index of the edit's first delta
+     */
+    void setFirst(int first) {
+        this.first = first;
+    }
+
+    /**
+     * Getter method for the number of fields the edit changed.
+     * @return the number of deltas
+     */
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * Getter method for where the edit's deltas end in the edit log.
+     * @return the index after the edit's last delta
+     */
+    int getEnd() {
+        return first + count;
+    }
+
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Getter method for the shape the edit was performed on, worked out from the shape in the model with the edit's new values.
+     * @return the shape, or null if it is no longer in the model
+     */
+    @Override
+    public Shape getShape() {
+        Shape current = history.getModel() == null ? null : history.getModel().getShape(id);
+        if(current == null)
+            return null;
+        return history.getEdits().apply(current, first, count, false);
+    }
+
+    @Override
+    public char getType() {
+        return 'e';
+    }
+}
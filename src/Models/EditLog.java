@@ -0,0 +1,220 @@
+package Models;
+
+import java.awt.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * This class keeps the changes made by edits as field level deltas: the ID of the shape, which field changed, and its old and new values.
+ * The deltas are packed into arrays of primitives, one array per part, so an edit that changes one field takes 25 bytes
+ * rather than two copies of the whole shape, and the log holds no shapes at all.
+ * Colors are kept as their ARGB values, with NO_COLOR for a shape that has no fill or stroke color.
+ * @author malaksadek
+ */
+final class EditLog implements Serializable {
+    private static final long serialVersionUID = 1;
+
+    static final byte START_X = 0, START_Y = 1, END_X = 2, END_Y = 3, STROKE_WIDTH = 4, FILL_COLOR = 5, STROKE_COLOR = 6;
+    static final long NO_COLOR = -1;
+
+    private long[] ids = new long[16];
+    private byte[] fields = new byte[16];
+    private long[] oldValues = new long[16];
+    private long[] newValues = new long[16];
+    private int size = 0;
+
+    /**
+     * This method adds the deltas for every field that differs between two states of a shape.
+     * @param before - the shape's state before the edit
+     * @param after - the shape's state after the edit
+     * @return the number of deltas added, which may be 0 if nothing changed
+     */
+    int addEdit(Shape before, Shape after) {
+        int start = size;
+        long id = after.getId();
+        add(id, START_X, before.getStartX(), after.getStartX());
+        add(id, START_Y, before.getStartY(), after.getStartY());
+        add(id, END_X, before.getEndX(), after.getEndX());
+        add(id, END_Y, before.getEndY(), after.getEndY());
+        add(id, STROKE_WIDTH, before.getStrokeWidth(), after.getStrokeWidth());
+        add(id, FILL_COLOR, encode(before.getFillColor()), encode(after.getFillColor()));
+        add(id, STROKE_COLOR, encode(before.getStrokeColor()), encode(after.getStrokeColor()));
+        return size - start;
+    }
+
+    /**
+     * This method adds a delta, unless the value didn't change.
+     */
+    private void add(long id, byte field, long oldValue, long newValue) {
+        if(oldValue == newValue)
+            return;
+        if(size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            fields = Arrays.copyOf(fields, capacity);
+            oldValues = Arrays.copyOf(oldValues, capacity);
+            newValues = Arrays.copyOf(newValues, capacity);
+        }
+        ids[size] = id;
+        fields[size] = field;
+        oldValues[size] = oldValue;
+        newValues[size] = newValue;
+        size++;
+    }
+
+    /**
+     * This method checks whether two edits changed the same fields of the same shape.
+     * @param first - the first delta of one edit
+     * @param other - the first delta of the other edit
+     * @param count - the number of deltas each edit has
+     * @return true if the deltas have the same shape IDs and fields
+     */
+    boolean sameFields(int first, int other, int count) {
+        for(int i = 0; i < count; i++) {
+            if(ids[first + i] != ids[other + i] || fields[first + i] != fields[other + i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * This method gives an edit's deltas the new values of a later edit of the same fields, so the one edit goes from the first's old values
+     * to the later one's new values.
+     * @param first - the first delta of the edit kept
+     * @param later - the first delta of the later edit
+     * @param count - the number of deltas each edit has
+     */
+    void merge(int first, int later, int count) {
+        System.arraycopy(newValues, later, newValues, first, count);
+    }
+
+    /**
+     * This method adds a copy of a range of another log's deltas.
+     * @param from - the log to copy from
+     * @param first - the first delta to copy
+     * @param count - the number of deltas
+     * @return where the copies start in this log
+     */
+    int copy(EditLog from, int first, int count) {
+        int start = size;
+        for(int i = first; i < first + count; i++)
+            add(from.ids[i], from.fields[i], from.oldValues[i], from.newValues[i]);
+        return start;
+    }
+
+    /**
+     * This method writes a range of deltas, which all belong to the same edit, so they can be read back into a log with read.
+     * @param out - the stream to write to
+     * @param first - the first delta
+     * @param count - the number of deltas
+     * @throws IOException
+     */
+    void write(DataOutput out, int first, int count) throws IOException {
+        for(int i = first; i < first + count; i++) {
+            out.writeByte(fields[i]);
+            out.writeLong(oldValues[i]);
+            out.writeLong(newValues[i]);
+        }
+    }
+
+    /**
+     * This method adds deltas written by write to the end of the log.
+     * @param in - the stream to read from
+     * @param id - the ID of the shape the edit changed
+     * @param count - the number of deltas
+     * @return where the deltas start in the log
+     * @throws IOException
+     */
+    int read(DataInput in, long id, int count) throws IOException {
+        int start = size;
+        for(int i = 0; i < count; i++)
+            add(id, in.readByte(), in.readLong(), in.readLong());
+        return start;
+    }
+
+    /**
+     * This method works out a shape's state with a range of deltas applied to it, or undone from it.
+     * @param s - the shape's current state
+     * @param first - the first delta
+     * @param count - the number of deltas
+     * @param undo - true to put back the old values, false to set the new values
+     * @return the shape's new state, or the given shape if none of its fields change
+     */
+    Shape apply(Shape s, int first, int count, boolean undo) {
+        int startX = s.getStartX(), startY = s.getStartY(), endX = s.getEndX(), endY = s.getEndY(), strokeWidth = s.getStrokeWidth();
+        long fillColor = encode(s.getFillColor()), strokeColor = encode(s.getStrokeColor());
+        boolean changed = false;
+        for(int i = 0; i < count; i++) {
+            //Deltas are undone in the opposite order to the one they were made in
+            int delta = undo ? first + count - 1 - i : first + i;
+            long value = undo ? oldValues[delta] : newValues[delta];
+            switch(fields[delta]) {
+                case START_X:
+                    changed |= startX != (int) value;
+                    startX = (int) value;
+                    break;
+                case START_Y:
+                    changed |= startY != (int) value;
+                    startY = (int) value;
+                    break;
+                case END_X:
+                    changed |= endX != (int) value;
+                    endX = (int) value;
+                    break;
+                case END_Y:
+                    changed |= endY != (int) value;
+                    endY = (int) value;
+                    break;
+                case STROKE_WIDTH:
+                    changed |= strokeWidth != (int) value;
+                    strokeWidth = (int) value;
+                    break;
+                case FILL_COLOR:
+                    changed |= fillColor != value;
+                    fillColor = value;
+                    break;
+                default:
+                    changed |= strokeColor != value;
+                    strokeColor = value;
+                    break;
+            }
+        }
+        if(!changed)
+            return s;
+        return ShapeTypes.create(s.getId(), ShapeTypes.tagOf(s.getShapeType()), startX, startY, endX, endY, strokeWidth,
+                decode(fillColor), decode(strokeColor), ShapeTypes.extraOf(s));
+    }
+
+    /**
+     * Getter method for how many deltas are in the log.
+     * @return the number of deltas
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * This method forgets the deltas from a point on, once no command uses them.
+     * @param size - the number of deltas to keep
+     */
+    void truncate(int size) {
+        this.size = Math.min(this.size, size);
+    }
+
+    /**
+     * This method turns a color into the value kept in a delta.
+     */
+    static long encode(Color c) {
+        return c == null ? NO_COLOR : c.getRGB() & 0xffffffffL;
+    }
+
+    /**
+     * This method turns the value kept in a delta back into a color.
+     */
+    static Color decode(long value) {
+        return value == NO_COLOR ? null : new Color((int) value, true);
+    }
+}
@@ -0,0 +1,277 @@
+package Models;
+
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class works out where shapes are drawn on the canvas, from the attributes kept in a shape store,
+ * and whether a point is on a shape.
+ * Each shape type is drawn differently from its start and end coordinates (squares and circles only use the width,
+ * parallelograms are slanted out past the end coordinate, and lines keep their second point in the end x and start y attributes),
+ * so everything that needs to know a shape's extent should go through here.
+ * @author malaksadek
+ */
+public final class Geometry {
+
+    //How far from a line, in pixels beyond its stroke, a click still selects it
+    public static final int PICK_TOLERANCE = 3;
+
+    //Cosines and sines of the corners of a regular polygon on the unit circle, worked out once per number of sides
+    private static final ConcurrentHashMap<Integer, double[][]> unitCircles = new ConcurrentHashMap<>();
+
+    private Geometry() {
+    }
+
+    /**
+     * This method finds the bounds of a shape, which cover both its start and end coordinates and everything drawn for it, including its stroke.
+     * @param store - the store the shape is in
+     * @param slot - the shape's slot
+     * @return the bounds of the shape
+     */
+    public static java.awt.Rectangle bounds(ShapeStore store, int slot) {
+        return bounds(store.getType(slot), store.getStartX(slot), store.getStartY(slot), store.getEndX(slot), store.getEndY(slot),
+                store.getStrokeWidth(slot));
+    }
+
+    /**
+     * This method finds the bounds of a shape, which cover both its start and end coordinates and everything drawn for it, including its stroke.
+     * @param s - the shape
+     * @return the bounds of the shape
+     */
+    public static java.awt.Rectangle bounds(Shape s) {
+        return bounds(ShapeTypes.tagOf(s.getShapeType()), s.getStartX(), s.getStartY(), s.getEndX(), s.getEndY(), s.getStrokeWidth());
+    }
+
+    /**
+     * This method finds the bounds of a shape from its attributes.
+     * @param type - the shape's type tag
+     * @param startX - the shape's start x coordinate
+     * @param startY - the shape's start y coordinate
+     * @param endX - the shape's end x coordinate
+     * @param endY - the shape's end y coordinate
+     * @param strokeWidth - the shape's stroke width
+     * @return the bounds of the shape
+     */
+    public static java.awt.Rectangle bounds(byte type, int startX, int startY, int endX, int endY, int strokeWidth) {
+        int minX = Math.min(startX, endX);
+        int minY = Math.min(startY, endY);
+        int maxX = Math.max(startX, endX);
+        int maxY = Math.max(startY, endY);
+        int width = maxX - minX;
+
+        switch (type) {
+            case ShapeTypes.SQUARE:
+            case ShapeTypes.CIRCLE:
+                //Drawn as wide as they are tall
+                maxY = Math.max(maxY, minY + width);
+                break;
+            case ShapeTypes.PARALLELOGRAM:
+                //The far side is slanted out by the shape's width
+                maxX += width;
+                break;
+            case ShapeTypes.LINE:
+                //Drawn from (startX, endX) to (startY, endY)
+                minX = Math.min(minX, Math.min(startX, startY));
+                maxX = Math.max(maxX, Math.max(startX, startY));
+                minY = Math.min(minY, Math.min(endX, endY));
+                maxY = Math.max(maxY, Math.max(endX, endY));
+                break;
+            default:
+                break;
+        }
+
+        int pad = (strokeWidth + 1) / 2 + PICK_TOLERANCE;
+        return new java.awt.Rectangle(minX - pad, minY - pad, maxX - minX + 2 * pad, maxY - minY + 2 * pad);
+    }
+
+    ////////////// Outlines //////////////
+
+    /**
+     * This method builds the outline a shape is drawn with, which the view draws or fills as it is.
+     * Shapes keep the outline this returns until their coordinates change, see Shape.getOutline().
+     * @param type - the shape's type tag
+     * @param startX - the shape's start x coordinate
+     * @param startY - the shape's start y coordinate
+     * @param endX - the shape's end x coordinate
+     * @param endY - the shape's end y coordinate
+     * @param extra - the shape's extra attribute, the number of sides for polygons or whether a triangle is equilateral
+     * @return the shape's outline
+     */
+    public static java.awt.Shape outline(byte type, int startX, int startY, int endX, int endY, int extra) {
+        int minX = Math.min(startX, endX);
+        int minY = Math.min(startY, endY);
+        int width = Math.abs(endX - startX);
+        int height = Math.abs(endY - startY);
+
+        switch (type) {
+            case ShapeTypes.LINE:
+                return new Line2D.Float(startX, endX, startY, endY);
+            case ShapeTypes.RECTANGLE:
+                return new java.awt.Rectangle(minX, minY, width, height);
+            case ShapeTypes.SQUARE:
+                return new java.awt.Rectangle(minX, minY, width, width);
+            case ShapeTypes.ELLIPSE:
+                return new Ellipse2D.Float(minX, minY, width, height);
+            case ShapeTypes.CIRCLE:
+                return new Ellipse2D.Float(minX, minY, width, width);
+            default:
+                int[][] points = vertices(type, startX, startY, endX, endY, extra);
+                if(type == ShapeTypes.PARALLELOGRAM || (type == ShapeTypes.TRIANGLE && extra == 0)) {
+                    //These have always been drawn as paths, parallelograms by going back to their first corner rather than closing the path
+                    Path2D.Double path = new Path2D.Double();
+                    path.moveTo(points[0][0], points[1][0]);
+                    for(int i = 1; i < points[0].length; i++)
+                        path.lineTo(points[0][i], points[1][i]);
+                    if(type == ShapeTypes.PARALLELOGRAM)
+                        path.lineTo(points[0][0], points[1][0]);
+                    else
+                        path.closePath();
+                    return path;
+                }
+                return new java.awt.Polygon(points[0], points[1], points[0].length);
+        }
+    }
+
+    ////////////// Hit testing //////////////
+
+    /**
+     * This method checks whether a point is on a shape: within a line's stroke, or inside or on the outline of any other shape.
+     * @param store - the store the shape is in
+     * @param slot - the shape's slot
+     * @param x - the point's x coordinate
+     * @param y - the point's y coordinate
+     * @return true if the point is on the shape
+     */
+    public static boolean contains(ShapeStore store, int slot, double x, double y) {
+        byte type = store.getType(slot);
+        int startX = store.getStartX(slot), startY = store.getStartY(slot), endX = store.getEndX(slot), endY = store.getEndY(slot);
+        double halfStroke = store.getStrokeWidth(slot) / 2.0;
+        int minX = Math.min(startX, endX), minY = Math.min(startY, endY);
+        int width = Math.abs(endX - startX), height = Math.abs(endY - startY);
+
+        switch (type) {
+            case ShapeTypes.LINE:
+                return distanceToSegment(x, y, startX, endX, startY, endY) <= halfStroke + PICK_TOLERANCE;
+            case ShapeTypes.RECTANGLE:
+                return x >= minX - halfStroke && x <= minX + width + halfStroke && y >= minY - halfStroke && y <= minY + height + halfStroke;
+            case ShapeTypes.SQUARE:
+                return x >= minX - halfStroke && x <= minX + width + halfStroke && y >= minY - halfStroke && y <= minY + width + halfStroke;
+            case ShapeTypes.ELLIPSE:
+                return inEllipse(x, y, minX, minY, width, height, halfStroke);
+            case ShapeTypes.CIRCLE:
+                return inEllipse(x, y, minX, minY, width, width, halfStroke);
+            default:
+                int[][] points = vertices(type, startX, startY, endX, endY, store.getExtra(slot));
+                return inPolygon(x, y, points[0], points[1], halfStroke);
+        }
+    }
+
+    /**
+     * This method works out the corners of a shape drawn as a polygon: hexagons, octagons, polygons, triangles and parallelograms.
+     * @param type - the shape's type tag
+     * @param startX - the shape's start x coordinate
+     * @param startY - the shape's start y coordinate
+     * @param endX - the shape's end x coordinate
+     * @param endY - the shape's end y coordinate
+     * @param extra - the shape's extra attribute, the number of sides for polygons or whether a triangle is equilateral
+     * @return the x coordinates and y coordinates of the corners, in drawing order
+     */
+    public static int[][] vertices(byte type, int startX, int startY, int endX, int endY, int extra) {
+        switch (type) {
+            case ShapeTypes.HEXAGON:
+                return regularPolygon(startX, startY, endX, endY, 6);
+            case ShapeTypes.OCTAGON:
+                return regularPolygon(startX, startY, endX, endY, 8);
+            case ShapeTypes.POLYGON:
+                return regularPolygon(startX, startY, endX, endY, extra);
+            case ShapeTypes.TRIANGLE:
+                if(extra != 0)
+                    return new int[][] { { startX, startX + ((endX - startX) / 2), endX }, { startY, endY, startY } };
+                return new int[][] { { startX, endX, endX }, { startY, startY, endY } };
+            case ShapeTypes.PARALLELOGRAM:
+                int width = Math.abs(endX - startX);
+                if(startX > endX)
+                    return new int[][] { { endX, startX, startX + width, startX }, { endY, endY, startY, startY } };
+                return new int[][] { { startX, endX, endX + width, endX }, { startY, startY, endY, endY } };
+            default:
+                throw new IllegalArgumentException("Not drawn as a polygon: " + ShapeTypes.nameOf(type));
+        }
+    }
+
+    /**
+     * This method works out the corners of a regular polygon fitted between the start and end coordinates,
+     * rounded the same way the view rounds them.
+     */
+    private static int[][] regularPolygon(int startX, int startY, int endX, int endY, int numberOfSides) {
+        double[][] unit = unitCircle(numberOfSides);
+        int[] xs = new int[numberOfSides];
+        int[] ys = new int[numberOfSides];
+        for(int i = 0; i < numberOfSides; i++) {
+            xs[i] = (int) (startX + ((endX - startX) / 2) + (endX - startX) / 2 * unit[0][i]);
+            ys[i] = (int) (startY + ((endY - startY) / 2) + (endY - startY) / 2 * unit[1][i]);
+        }
+        return new int[][] { xs, ys };
+    }
+
+    /**
+     * This method gets the corners of a regular polygon on the unit circle, starting at angle 0, working them out the first time they're needed.
+     * @param numberOfSides - the number of sides of the polygon
+     * @return the cosines and sines of the corners' angles
+     */
+    private static double[][] unitCircle(int numberOfSides) {
+        return unitCircles.computeIfAbsent(numberOfSides, n -> {
+            double[][] unit = new double[2][n];
+            for(int i = 0; i < n; i++) {
+                unit[0][i] = Math.cos(i * 2 * Math.PI / n);
+                unit[1][i] = Math.sin(i * 2 * Math.PI / n);
+            }
+            return unit;
+        });
+    }
+
+    /**
+     * This method checks whether a point is inside an ellipse grown by half its stroke width.
+     */
+    private static boolean inEllipse(double x, double y, int minX, int minY, int width, int height, double halfStroke) {
+        double rx = width / 2.0 + halfStroke;
+        double ry = height / 2.0 + halfStroke;
+        if(rx <= 0 || ry <= 0)
+            return false;
+        double dx = (x - (minX + width / 2.0)) / rx;
+        double dy = (y - (minY + height / 2.0)) / ry;
+        return dx * dx + dy * dy <= 1;
+    }
+
+    /**
+     * This method checks whether a point is inside a polygon (using the even-odd rule) or within half the stroke width of one of its edges.
+     */
+    private static boolean inPolygon(double x, double y, int[] xs, int[] ys, double halfStroke) {
+        boolean inside = false;
+        int n = xs.length;
+        for(int i = 0, j = n - 1; i < n; j = i++) {
+            if((ys[i] > y) != (ys[j] > y) && x < (double) (xs[j] - xs[i]) * (y - ys[i]) / (ys[j] - ys[i]) + xs[i])
+                inside = !inside;
+        }
+        if(inside)
+            return true;
+        for(int i = 0, j = n - 1; i < n; j = i++) {
+            if(distanceToSegment(x, y, xs[j], ys[j], xs[i], ys[i]) <= halfStroke)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * This method works out the distance from a point to a line segment.
+     */
+    private static double distanceToSegment(double x, double y, double x1, double y1, double x2, double y2) {
+        double dx = x2 - x1, dy = y2 - y1;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ((x - x1) * dx + (y - y1) * dy) / lengthSquared));
+        double px = x1 + t * dx - x, py = y1 + t * dy - y;
+        return Math.sqrt(px * px + py * py);
+    }
+}
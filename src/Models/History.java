@@ -0,0 +1,536 @@
+package Models;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is the model's history: the commands that have been done, which can be undone, and the commands that have been undone, which can be redone.
+ * Both are kept as stacks with the most recent command at the end, so undoing or redoing takes the same time however long the history
+ * or however many shapes there are. Edits keep only the fields they changed, in the history's edit log.
+ * The history has a memory budget: once its commands take up more than that, the oldest ones are written to a spill file in pages
+ * and only read back when the user undoes that far, so a long session doesn't keep every shape it ever made in memory.
+ * Edits of the same fields of the same shape that follow each other within the gesture window, like the steps of dragging the stroke slider,
+ * are merged into one edit, so the whole gesture is undone at once. The commands recorded during a batch are grouped into one command in the same way.
+ * @author malaksadek
+ */
+public class History implements Serializable {
+    private static final long serialVersionUID = 1;
+
+    //The default memory budget, in bytes
+    public static final long DEFAULT_MEMORY_BUDGET = 8L << 20;
+    //The default gesture window, in milliseconds
+    public static final long DEFAULT_GESTURE_MILLIS = 500;
+    //Rough sizes used to work out how much memory the commands take up, in bytes
+    private static final long COMMAND_BYTES = 32, SHAPE_BYTES = 128, DELTA_BYTES = 25;
+
+    private final ArrayList<Command> done = new ArrayList<>();
+    private final ArrayList<Command> undone = new ArrayList<>();
+    private EditLog edits = new EditLog();
+    private transient Model model;
+
+    private transient long memoryBudget = DEFAULT_MEMORY_BUDGET;
+    private transient long memoryBytes = 0;
+    //The oldest commands that can be undone, which have been moved to the spill file. Each page is where it starts in the file,
+    //how many commands it has and how many bytes it takes up, and the last page holds the most recent of them
+    private transient SpillFile spill = new SpillFile();
+    private transient ArrayList<long[]> pages = new ArrayList<>();
+    private transient int spilled = 0;
+
+    private transient long gestureMillis = DEFAULT_GESTURE_MILLIS;
+    //The edit recorded last and when, which a following edit may be merged into. It's forgotten once anything else happens to the history
+    private transient EditCommand lastEdit;
+    private transient long lastEditTime;
+    //The commands of the batch being recorded, which are always the most recent commands that can be undone, or null if there isn't one
+    private transient ArrayList<Command> group;
+
+    /**
+     * This method sets the model the history belongs to, which edits look their shapes up in.
+     * @param model - the model
+     */
+    void attach(Model model) {
+        this.model = model;
+    }
+
+    /**
+     * Getter method for the model the history belongs to.
+     * @return the model
+     */
+    Model getModel() {
+        return model;
+    }
+
+    /**
+     * Getter method for the log the deltas of the history's edits are kept in.
+     * @return the edit log
+     */
+    EditLog getEdits() {
+        return edits;
+    }
+
+    /**
+     * This method makes the command for an edit, adding a delta to the edit log for each field that differs between the shape's two states.
+     * The command isn't added to the history.
+     * @param before - the shape's state before the edit
+     * @param after - the shape's state after the edit, which has the shape's ID
+     * @return the edit command
+     */
+    EditCommand edit(Shape before, Shape after) {
+        int first = edits.size();
+        int count = edits.addEdit(before, after);
+        return new EditCommand(this, after.getId(), first, count);
+    }
+
+    /**
+     * This method adds a command that has just been done to the history, and moves the oldest commands to the spill file
+     * if the history is now over its memory budget.
+     * An edit made within the gesture window of the edit recorded just before it, to the same fields of the same shape,
+     * is merged into that edit instead.
+     * @param command - the command
+     */
+    void record(Command command) {
+        long now = System.nanoTime();
+        if(command instanceof EditCommand && coalesce((EditCommand) command, now))
+            return;
+        lastEdit = command instanceof EditCommand ? (EditCommand) command : null;
+        lastEditTime = now;
+        done.add(command);
+        if(group != null)
+            group.add(command);
+        memoryBytes += sizeOf(command);
+        keepToBudget();
+    }
+
+    /**
+     * This method merges an edit into the edit recorded just before it, if that edit is still the most recent command, was recorded within
+     * the gesture window, and changed the same fields of the same shape. The merged edit keeps the earlier edit's old values and takes
+     * the new edit's new values, and the new edit's deltas are dropped.
+     * @param edit - the edit just made, whose deltas are at the end of the edit log
+     * @param now - when it was made, from System.nanoTime
+     * @return true if it was merged, false if it should be recorded as a command of its own
+     */
+    private boolean coalesce(EditCommand edit, long now) {
+        EditCommand last = lastEdit;
+        if(last == null || gestureMillis <= 0 || done.isEmpty() || done.get(done.size() - 1) != last || now - lastEditTime > gestureMillis * 1000000)
+            return false;
+        if(last.getId() != edit.getId() || last.getCount() != edit.getCount() || last.getEnd() != edit.getFirst()
+                || !edits.sameFields(last.getFirst(), edit.getFirst(), edit.getCount()))
+            return false;
+        edits.merge(last.getFirst(), edit.getFirst(), edit.getCount());
+        edits.truncate(edit.getFirst());
+        lastEditTime = now;
+        return true;
+    }
+
+    /**
+     * Getter method for how long after an edit a following edit of the same fields is merged into it.
+     * @return the gesture window in milliseconds
+     */
+    public long getGestureMillis() {
+        return gestureMillis;
+    }
+
+    /**
+     * Setter method for how long after an edit a following edit of the same fields is merged into it.
+     * @param gestureMillis - the gesture window in milliseconds, 0 so edits are never merged
+     */
+    public void setGestureMillis(long gestureMillis) {
+        this.gestureMillis = gestureMillis;
+    }
+
+    /**
+     * This method starts grouping the commands recorded into one command, for a batch. Commands aren't moved to the spill file until it ends.
+     */
+    void beginGroup() {
+        group = new ArrayList<>();
+        lastEdit = null;
+    }
+
+    /**
+     * This method ends the group started by beginGroup, replacing the commands recorded since then with one batch command
+     * if there's more than one of them. Commands undone while the group was open are left out of it, and commands redone are added to it.
+     */
+    void endGroup() {
+        if(group == null)
+            return;
+        ArrayList<Command> grouped = group;
+        group = null;
+        lastEdit = null;
+        if(grouped.size() > 1) {
+            BatchCommand batch = new BatchCommand(grouped);
+            done.subList(done.size() - grouped.size(), done.size()).clear();
+            done.add(batch);
+            memoryBytes += COMMAND_BYTES;
+        }
+        keepToBudget();
+    }
+
+    /**
+     * This method adds a command that has been undone to the history, for loading a history saved before there were commands.
+     * @param command - the command, which will be redone before the ones already added
+     */
+    void recordUndone(Command command) {
+        undone.add(command);
+        memoryBytes += sizeOf(command);
+    }
+
+    /**
+     * This method undoes the most recent command and keeps it to be redone.
+     * If the commands in memory have all been undone, the page moved to the spill file most recently is read back first.
+     * @param model - the model to undo the command in
+     * @return the command undone, or null if there was nothing to undo
+     */
+    Command undo(Model model) {
+        if(done.isEmpty())
+            pageIn();
+        if(done.isEmpty())
+            return null;
+        lastEdit = null;
+        Command command = done.remove(done.size() - 1);
+        if(group != null && !group.isEmpty())
+            group.remove(group.size() - 1);
+        command.revert(model);
+        undone.add(command);
+        return command;
+    }
+
+    /**
+     * This method redoes the most recently undone command.
+     * @param model - the model to redo the command in
+     * @return the command redone, or null if there was nothing to redo
+     */
+    Command redo(Model model) {
+        if(undone.isEmpty())
+            return null;
+        lastEdit = null;
+        Command command = undone.remove(undone.size() - 1);
+        command.apply(model);
+        done.add(command);
+        if(group != null)
+            group.add(command);
+        return command;
+    }
+
+    /**
+     * This method checks whether there is anything to undo.
+     * @return true if a command can be undone
+     */
+    public boolean canUndo() {
+        return !done.isEmpty() || spilled > 0;
+    }
+
+    /**
+     * This method checks whether there is anything to redo.
+     * @return true if a command can be redone
+     */
+    public boolean canRedo() {
+        return !undone.isEmpty();
+    }
+
+    /**
+     * Getter method for the command the next undo would undo, which may read it back from the spill file.
+     * @return the most recent command, or null if there is nothing to undo
+     */
+    public Command peekUndo() {
+        if(done.isEmpty())
+            pageIn();
+        return done.isEmpty() ? null : done.get(done.size() - 1);
+    }
+
+    /**
+     * Getter method for the command the next redo would redo.
+     * @return the most recently undone command, or null if there is nothing to redo
+     */
+    public Command peekRedo() {
+        return undone.isEmpty() ? null : undone.get(undone.size() - 1);
+    }
+
+    /**
+     * Getter method for how many commands can be undone, including the ones in the spill file.
+     * @return the number of commands
+     */
+    public int size() {
+        return done.size() + spilled;
+    }
+
+    /**
+     * Getter method for how many commands can be redone.
+     * @return the number of commands
+     */
+    public int redoSize() {
+        return undone.size();
+    }
+
+    /**
+     * Getter method for how many field changes the history's edits in memory have recorded.
+     * @return the number of deltas in the edit log
+     */
+    public int getDeltaCount() {
+        return edits.size();
+    }
+
+    /**
+     * This method forgets the commands that can be redone, once the user does something new after undoing.
+     * If any of them were edits, the edit log is made again with only the deltas of the edits that can still be undone,
+     * since edits read back from the spill file put their deltas after the ones undone edits used.
+     */
+    void clearRedo() {
+        ArrayList<EditCommand> found = new ArrayList<>();
+        for(Command command : undone) {
+            collectEdits(command, found);
+            memoryBytes -= sizeOf(command);
+        }
+        undone.clear();
+        if(!found.isEmpty())
+            compactEdits();
+    }
+
+    /**
+     * This method forgets the whole history, including the commands in the spill file.
+     */
+    void clear() {
+        done.clear();
+        undone.clear();
+        edits.truncate(0);
+        lastEdit = null;
+        if(group != null)
+            group.clear();
+        memoryBytes = 0;
+        pages.clear();
+        spilled = 0;
+        spill.close();
+    }
+
+    /**
+     * This method deletes the spill file, forgetting the oldest commands in it, for a model that's only being looked at and not edited,
+     * such as one read to make a thumbnail. Otherwise the file stays until the program exits.
+     */
+    public void close() {
+        pages.clear();
+        spilled = 0;
+        spill.close();
+    }
+
+    //////////////////////////// Memory budget ///////////////////////////////
+
+    /**
+     * Getter method for how much memory the history may use before it moves its oldest commands to the spill file.
+     * @return the budget in bytes
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Setter method for how much memory the history may use, which moves commands to the spill file straight away if it's over the new budget.
+     * @param memoryBudget - the budget in bytes
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        keepToBudget();
+    }
+
+    /**
+     * Getter method for roughly how much memory the commands kept in memory take up.
+     * @return the size of the commands, and the shapes and deltas they keep, in bytes
+     */
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    /**
+     * Getter method for how much of the history is in the spill file.
+     * @return the size of the spill file in bytes
+     */
+    public long getSpilledBytes() {
+        return spill.length();
+    }
+
+    /**
+     * This method works out roughly how much memory a command takes up.
+     */
+    private static long sizeOf(Command command) {
+        if(command instanceof BatchCommand) {
+            long size = COMMAND_BYTES;
+            for(Command grouped : ((BatchCommand) command).getCommands())
+                size += sizeOf(grouped);
+            return size;
+        }
+        if(command instanceof EditCommand)
+            return COMMAND_BYTES + DELTA_BYTES * ((EditCommand) command).getCount();
+        return COMMAND_BYTES + SHAPE_BYTES;
+    }
+
+    /**
+     * This method moves the oldest commands that can be undone to the spill file while the history is over its memory budget.
+     * They're moved as one page, until the history is down to half its budget, so pages aren't written for every command recorded.
+     * The most recent command always stays in memory, and nothing is moved while a batch is being recorded.
+     */
+    private void keepToBudget() {
+        if(memoryBytes <= memoryBudget || done.size() < 2 || group != null)
+            return;
+        int count = 0;
+        long freed = 0;
+        while(count < done.size() - 1 && memoryBytes - freed > memoryBudget / 2)
+            freed += sizeOf(done.get(count++));
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeInt(count);
+            for(int i = 0; i < count; i++)
+                writeCommand(out, done.get(i));
+            out.close();
+            byte[] page = bytes.toByteArray();
+            pages.add(new long[] { spill.append(page), count, page.length });
+        } catch (IOException e) {
+            //If the spill file can't be written the commands stay in memory, rather than trying again on every command
+            e.printStackTrace();
+            memoryBudget = Long.MAX_VALUE;
+            return;
+        }
+        done.subList(0, count).clear();
+        spilled += count;
+        memoryBytes -= freed;
+        compactEdits();
+    }
+
+    /**
+     * This method reads the page moved to the spill file most recently back into memory, under the commands already there.
+     * If the file can't be read, the commands in it are lost and can no longer be undone.
+     */
+    private void pageIn() {
+        if(pages.isEmpty())
+            return;
+        long[] page = pages.remove(pages.size() - 1);
+        spilled -= page[1];
+        try {
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(spill.takeLast(page[0])));
+            int count = in.readInt();
+            ArrayList<Command> commands = new ArrayList<>(count);
+            for(int i = 0; i < count; i++) {
+                Command command = readCommand(in);
+                commands.add(command);
+                memoryBytes += sizeOf(command);
+            }
+            done.addAll(0, commands);
+        } catch (IOException | ClassNotFoundException e) {
+            e.printStackTrace();
+            pages.clear();
+            spilled = 0;
+            spill.close();
+        }
+    }
+
+    /**
+     * This method writes a command to a page. Edits are written with their deltas, since the edit log isn't written with them.
+     */
+    private void writeCommand(ObjectOutputStream out, Command command) throws IOException {
+        out.writeChar(command.getType());
+        if(command instanceof BatchCommand) {
+            List<Command> grouped = ((BatchCommand) command).getCommands();
+            out.writeInt(grouped.size());
+            for(Command c : grouped)
+                writeCommand(out, c);
+        } else if(command instanceof EditCommand) {
+            EditCommand edit = (EditCommand) command;
+            out.writeLong(edit.getId());
+            out.writeInt(edit.getCount());
+            edits.write(out, edit.getFirst(), edit.getCount());
+        } else {
+            out.writeObject(command.getShape());
+        }
+    }
+
+    /**
+     * This method reads a command written by writeCommand, adding an edit's deltas to the end of the edit log.
+     */
+    private Command readCommand(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        char type = in.readChar();
+        if(type == 'b') {
+            int count = in.readInt();
+            ArrayList<Command> grouped = new ArrayList<>(count);
+            for(int i = 0; i < count; i++)
+                grouped.add(readCommand(in));
+            return new BatchCommand(grouped);
+        }
+        if(type == 'e') {
+            long id = in.readLong();
+            int count = in.readInt();
+            return new EditCommand(this, id, edits.read(in, id, count), count);
+        }
+        Shape shape = (Shape) in.readObject();
+        return type == 'c' ? new CreateCommand(shape) : new DeleteCommand(shape);
+    }
+
+    /**
+     * This method makes a new edit log with only the deltas of the edits still in memory, after some were moved to the spill file
+     * or the ones that could be redone were forgotten.
+     */
+    private void compactEdits() {
+        ArrayList<EditCommand> kept = new ArrayList<>();
+        for(Command command : done)
+            collectEdits(command, kept);
+        for(Command command : undone)
+            collectEdits(command, kept);
+        EditLog compacted = new EditLog();
+        for(EditCommand edit : kept)
+            edit.setFirst(compacted.copy(edits, edit.getFirst(), edit.getCount()));
+        edits = compacted;
+    }
+
+    /**
+     * This method adds a command to a list if it's an edit, or the edits in it if it's a batch.
+     */
+    private static void collectEdits(Command command, List<EditCommand> edits) {
+        if(command instanceof EditCommand) {
+            edits.add((EditCommand) command);
+        } else if(command instanceof BatchCommand) {
+            for(Command grouped : ((BatchCommand) command).getCommands())
+                collectEdits(grouped, edits);
+        }
+    }
+
+    //////////////////////////// Saving and loading ///////////////////////////////
+
+    /**
+     * This method writes the history to a file or across the network. The commands in the spill file are saved as the pages they're in,
+     * read straight from the file, so saving doesn't change what's kept in memory.
+     * @param out - the stream the history is written to
+     * @throws IOException if the history or the spill file can't be read or written
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(pages.size());
+        for(long[] page : pages) {
+            out.writeInt((int) page[1]);
+            out.writeObject(spill.read(page[0], (int) page[2]));
+        }
+    }
+
+    /**
+     * This method reads the history and works out how much memory it takes up. The pages that were in the spill file when it was saved
+     * are put in a spill file again rather than read into memory.
+     * @param in - the stream the history is read from
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        memoryBudget = DEFAULT_MEMORY_BUDGET;
+        gestureMillis = DEFAULT_GESTURE_MILLIS;
+        spill = new SpillFile();
+        pages = new ArrayList<>();
+        int pageCount = in.readInt();
+        for(int i = 0; i < pageCount; i++) {
+            int count = in.readInt();
+            byte[] page = (byte[]) in.readObject();
+            pages.add(new long[] { spill.append(page), count, page.length });
+            spilled += count;
+        }
+        for(Command command : done)
+            memoryBytes += sizeOf(command);
+        for(Command command : undone)
+            memoryBytes += sizeOf(command);
+        keepToBudget();
+    }
+}
@@ -0,0 +1,123 @@
+package Models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is the default shape store, which keeps the shape objects themselves in an array list.
+ * @author malaksadek
+ */
+public class ListShapeStore implements ShapeStore {
+    private static final long serialVersionUID = 1;
+    private ArrayList<Shape> shapes;
+
+    /**
+     * Constructor for the class, creates an empty store.
+     */
+    public ListShapeStore() {
+        shapes = new ArrayList<>();
+    }
+
+    /**
+     * Constructor for the class which uses an existing list of shapes, used for models saved before there were stores.
+     * @param shapes - the shapes to keep in the store
+     */
+    ListShapeStore(ArrayList<Shape> shapes) {
+        this.shapes = shapes;
+    }
+
+    @Override
+    public int size() {
+        return shapes.size();
+    }
+
+    @Override
+    public Shape get(int slot) {
+        return shapes.get(slot);
+    }
+
+    @Override
+    public void add(Shape s) {
+        shapes.add(s);
+    }
+
+    @Override
+    public void set(int slot, Shape s) {
+        shapes.set(slot, s);
+    }
+
+    @Override
+    public void remove(int slot) {
+        shapes.remove(slot);
+    }
+
+    @Override
+    public void clear() {
+        shapes.clear();
+    }
+
+    @Override
+    public List<Shape> asList() {
+        return shapes;
+    }
+
+    @Override
+    public long getId(int slot) {
+        return shapes.get(slot).getId();
+    }
+
+    @Override
+    public byte getType(int slot) {
+        return ShapeTypes.tagOf(shapes.get(slot).getShapeType());
+    }
+
+    @Override
+    public int getStartX(int slot) {
+        return shapes.get(slot).getStartX();
+    }
+
+    @Override
+    public int getStartY(int slot) {
+        return shapes.get(slot).getStartY();
+    }
+
+    @Override
+    public int getEndX(int slot) {
+        return shapes.get(slot).getEndX();
+    }
+
+    @Override
+    public int getEndY(int slot) {
+        return shapes.get(slot).getEndY();
+    }
+
+    @Override
+    public int getStrokeWidth(int slot) {
+        return shapes.get(slot).getStrokeWidth();
+    }
+
+    @Override
+    public boolean hasFillColor(int slot) {
+        return shapes.get(slot).getFillColor() != null;
+    }
+
+    @Override
+    public int getFillColor(int slot) {
+        return shapes.get(slot).getFillColor().getRGB();
+    }
+
+    @Override
+    public boolean hasStrokeColor(int slot) {
+        return shapes.get(slot).getStrokeColor() != null;
+    }
+
+    @Override
+    public int getStrokeColor(int slot) {
+        return shapes.get(slot).getStrokeColor().getRGB();
+    }
+
+    @Override
+    public int getExtra(int slot) {
+        return ShapeTypes.extraOf(shapes.get(slot));
+    }
+}
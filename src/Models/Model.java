@@ -1,55 +1,106 @@
 package Models;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Observable;
+import java.util.Set;
 import java.util.Stack;
 
 /**
- * This shape represents the model in the MVC and contains a list of the shapes currently present as well as
- * stacks for actions and changes to be used for the undo and redo features.
+ * This shape represents the model in the MVC and contains a store of the shapes currently present, an index from shape IDs to
+ * their place in that store, as well as the history of commands to be used for the undo and redo features.
  * It implements observable for the view to be able to listen to changes within it, and implements serializable to be able to be
  * saved and loaded from a file and sent across a network.
  * @author malaksadek
  */
 public class Model extends Observable implements Serializable {
     private static final long serialVersionUID = 3;
-    private Stack actions;
-    private ArrayList<Shape> shapes;
-    private Stack lastChange;
+    private transient History history;
+    private transient ShapeStore shapes;
+    private transient SlotIndex index;
+    private transient RTree spatialIndex;
+    private transient java.awt.Rectangle damage;
+    private transient boolean damageAll;
+    //How many batches have begun and not been committed yet, while this is above 0 the observers aren't notified of changes
+    private transient int batchDepth;
+
+    //The shape store is written under its own field so that files saved before there were stores, which have a
+    //'shapes' array list instead, can still be loaded, and likewise files saved before there were commands have
+    //'actions' and 'lastChange' stacks instead of a history
+    //Where the canvas is in the window. Files saved before there were shape stores measured their shapes from the window's corner,
+    //so their shapes are moved by this to be measured from the canvas' corner like the shapes drawn now
+    private static volatile java.awt.Point legacyOrigin = new java.awt.Point();
+
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("actions", Stack.class),
+            new ObjectStreamField("lastChange", Stack.class),
+            new ObjectStreamField("history", History.class),
+            new ObjectStreamField("shapes", ArrayList.class),
+            new ObjectStreamField("store", ShapeStore.class)
+    };
 
     /**
-     * Constructor for the class, sets up the array list and stacks.
+     * Constructor for the class, sets up the shape store and history.
+     * The shapes are kept as objects in a list.
      */
     public Model(){
-        shapes = new ArrayList<>();
-        actions = new Stack();
-        lastChange = new Stack();
+        this(new ListShapeStore());
     }
 
     /**
-     * Getter method for the array of shapes present in the model.
-     * @return the array of shapes in the model
+     * Constructor for the class which keeps the shapes in the given store, sets up the history.
+     * @param store - the empty store to keep the model's shapes in
      */
-    public ArrayList<Shape> getShapes() {
+    public Model(ShapeStore store){
+        shapes = store;
+        index = new SlotIndex();
+        spatialIndex = new RTree();
+        history = new History();
+        history.attach(this);
+    }
+
+    /**
+     * Getter method for the shapes present in the model, in drawing order.
+     * Shapes should only be added or removed through the model so that its index stays up to date.
+     * @return the list of shapes in the model
+     */
+    public List<Shape> getShapes() {
+        return shapes.asList();
+    }
+
+    /**
+     * Getter method for the store the model's shapes are kept in, which can be scanned slot by slot without creating shape objects.
+     * @return the shape store
+     */
+    public ShapeStore getStore() {
         return shapes;
     }
 
     /**
-     * Getter method for the stack of actions performed, this is used for the undo feature.
-     * @return the stack of actions performed
+     * Getter method for the history of commands performed and undone, this is used for the undo and redo features.
+     * @return the model's history
      */
-    public Stack getActions() {
-        return actions;
+    public History getHistory() {
+        return history;
     }
 
     /**
-     * Getter method for the last item in the lastChange stack, this is used for the redo feature.
-     * @return the top shape on the lastChange stack (the last shape that was created, edited, or deleted and then that action was undone)
+     * Getter method for the shape the next redo is about, this is used for the redo feature.
+     * @return the shape of the last command that was undone (the last shape that was created, edited, or deleted and then that action was undone),
+     * or null if there is nothing to redo
      */
     public Shape getLastChange() {
-        if(!lastChange.empty())
-            return ((Action)lastChange.peek()).s;
+        Command command = history.peekRedo();
+        if(command != null)
+            return command.getShape();
         else
             return null;
     }
@@ -57,7 +108,7 @@ public class Model extends Observable implements Serializable {
     //////////////////////////// Adding the shapes ///////////////////////////////
 
     //For all these methods, the appropriate type of shape is added to the shape list
-    //Then the action is added to the actions stack and given the type 'c' for create
+    //Then a create command is added to the history
     //Finally the update method is called to inform the view
 
     /**
@@ -65,8 +116,8 @@ public class Model extends Observable implements Serializable {
      * @param l - the line to be added
      */
     public void createLine(Line l) {
-        shapes.add(l);
-        actions.push(new Action(l, 'c'));
+        insertShape(l);
+        history.record(new CreateCommand(l));
         update();
     }
 
@@ -75,8 +126,8 @@ public class Model extends Observable implements Serializable {
      * @param t - the triangle to be added
      */
     public void createTriangle(Triangle t) {
-        shapes.add(t);
-        actions.push(new Action(t, 'c'));
+        insertShape(t);
+        history.record(new CreateCommand(t));
         update();
     }
 
@@ -85,8 +136,8 @@ public class Model extends Observable implements Serializable {
      * @param s - the square to be added
      */
     public void createSquare(Square s) {
-        shapes.add(s);
-        actions.push(new Action(s, 'c'));
+        insertShape(s);
+        history.record(new CreateCommand(s));
         update();
     }
 
@@ -95,8 +146,8 @@ public class Model extends Observable implements Serializable {
      * @param r - the rectangle to be added
      */
     public void createRectangle(Rectangle r) {
-        shapes.add(r);
-        actions.push(new Action(r, 'c'));
+        insertShape(r);
+        history.record(new CreateCommand(r));
         update();
     }
 
@@ -105,8 +156,8 @@ public class Model extends Observable implements Serializable {
      * @param e - the ellipse to be added
      */
     public void createEllipse(Ellipse e) {
-        shapes.add(e);
-        actions.push(new Action(e, 'c'));
+        insertShape(e);
+        history.record(new CreateCommand(e));
         update();
     }
 
@@ -115,8 +166,8 @@ public class Model extends Observable implements Serializable {
      * @param c - the circle to be added
      */
     public void createCircle(Circle c) {
-        shapes.add(c);
-        actions.push(new Action(c, 'c'));
+        insertShape(c);
+        history.record(new CreateCommand(c));
         update();
     }
 
@@ -125,8 +176,8 @@ public class Model extends Observable implements Serializable {
      * @param h - the hexagon to be added
      */
     public void createHexagon(Hexagon h) {
-        shapes.add(h);
-        actions.push(new Action(h, 'c'));
+        insertShape(h);
+        history.record(new CreateCommand(h));
         update();
     }
 
@@ -135,8 +186,8 @@ public class Model extends Observable implements Serializable {
      * @param o - the octagon to be added
      */
     public void createOctagon(Octagon o) {
-        shapes.add(o);
-        actions.push(new Action(o, 'c'));
+        insertShape(o);
+        history.record(new CreateCommand(o));
         update();
     }
 
@@ -145,8 +196,8 @@ public class Model extends Observable implements Serializable {
      * @param p - the parallelogram to be added
      */
     public void createParallelogram(Parallelogram p) {
-        shapes.add(p);
-        actions.push(new Action(p, 'c'));
+        insertShape(p);
+        history.record(new CreateCommand(p));
         update();
     }
 
@@ -155,233 +206,129 @@ public class Model extends Observable implements Serializable {
      * @param p - the polygon to be added
      */
     public void createPolygon(Polygon p) {
-        shapes.add(p);
-        actions.push(new Action(p, 'c'));
+        insertShape(p);
+        history.record(new CreateCommand(p));
         update();
     }
 
-    //////////////////////////// Modifying the history ///////////////////////////////
+    //////////////////////////// Batches ///////////////////////////////
 
     /**
-     * This method is called by the controller when the undo button is pressed on the view.
-     * It modifies the state of the model
+     * This method begins a batch of changes, such as adding many shapes at once. Until the batch is committed the observers aren't notified
+     * of the changes, and the commands added to the history are grouped so the whole batch is undone and redone as one.
+     * Batches can be begun inside other batches, and only committing the outermost one ends the batch.
      */
-    public void undo() {
-        //If there is an action which can be undone
-        if(!actions.empty()) {
-
-            //The last action performed is obtained
-            Action a = (Action) actions.peek();
-
-            //If the last action performed was creating a shape
-            if (a.type == 'c') {
-
-                //The action is removed and placed on the lastChange stack (so that it can be redone)
-                a = (Action) actions.pop();
-                lastChange.push(a);
-
-                //The shape that was created is found in the array of shapes using the Shape equality functions
-                for(Shape n : shapes){
-                    if((n.equalColor(a.s)) || (n.equalSize(a.s)) || (n.equalPosition(a.s)) || n.equalStroke(a.s))
-                        a.s = n;
-                }
-
-                //That shape is then removed from the shapes array (to undo creating it)
-                shapes.remove(a.s);
-                update();
-            }
-            //If the last action performed was editing a shape
-            else if (a.type == 'e') {
+    public void beginBatch() {
+        if(batchDepth++ == 0)
+            history.beginGroup();
+    }
 
-                //The action is removed
-                a = (Action) actions.pop();
+    /**
+     * This method commits the batch begun by beginBatch, grouping its commands in the history and notifying the observers once
+     * with the area all of its changes covered.
+     */
+    public void commit() {
+        if(batchDepth == 0)
+            throw new IllegalStateException("commit called without beginBatch");
+        if(--batchDepth > 0)
+            return;
+        history.endGroup();
+        if(damage != null || damageAll)
+            update();
+    }
 
-                //The shape that was edited is found in the array of shapes using the Shape equality functions
-                for(Shape n : shapes){
-                    if((n.equalColor(a.s)) || (n.equalSize(a.s)) || (n.equalPosition(a.s)) || n.equalStroke(a.s))
-                        a.s = n;
-                }
-                //Edits are saved on the action and lastChange stack as two elements, one for the old shape state and one for the new shape state
-                //Here the new shape state is removed and added to the lastChange stack (so that it can be redone)
-                shapes.remove(a.s);
-                lastChange.push(a);
-
-                //The action stack is then rechecked, if it's not empty, the following action is examined
-                if (!actions.empty()) {
-                    //If the previous entry is a create entry
-                    if (((Action) actions.peek()).type == 'c'){
-                        //The shape is removed from the shapes array and the action stack and then added to the last change stack
-                        shapes.remove(a.s);
-                        actions.pop();
-                        a = new Action((Action) lastChange.peek());
-                        lastChange.push(a);
-                        ((Action) lastChange.peek()).type = 'c';
-                    } else {
-                        //If the previous entry is an edit
-                        // The edited shape is added to the shape array and to the last change array (so that it can be redone)
-                        Action test = (Action) actions.peek();
-                        if (test.s.equalColor(a.s) || test.s.equalPosition(a.s) || test.s.equalSize(a.s) ||test.s.equalStroke(a.s) ) {
-                            a = (Action) actions.pop();
-                            shapes.add(a.s);
-                            lastChange.push(a);
-                        }
-                    }
-                }
-                update();
-            }
-            //If the last action performed was deleting a shape
-            else if(a.type == 'd'){
+    /**
+     * This method makes changes to the model as one batch, committing it even if the changes throw an exception.
+     * @param changes - the changes to make
+     */
+    public void batch(Runnable changes) {
+        beginBatch();
+        try {
+            changes.run();
+        } finally {
+            commit();
+        }
+    }
 
-                //The action is removed and placed on the lastChange stack (so that it can be redone)
-                a = (Action) actions.pop();
-                lastChange.push(a);
+    /**
+     * This method checks whether a batch has been begun and not yet committed.
+     * @return true if changes are being batched
+     */
+    public boolean inBatch() {
+        return batchDepth > 0;
+    }
 
-                //The shape that was deleted is found in the array of shapes using the Shape equality functions
-                for(Shape n : shapes){
-                    if((n.equalColor(a.s)) && (n.equalSize(a.s)) && (n.equalPosition(a.s)) && n.equalStroke(a.s))
-                        a.s = n;
-                }
+    //////////////////////////// Modifying the history ///////////////////////////////
 
-                //That shape is then added to the shapes array (to undo deleting it)
-                shapes.add(a.s);
-                update();
-            }
-        }
+    /**
+     * This method is called by the controller when the undo button is pressed on the view.
+     * The most recent command is undone and kept so that it can be redone.
+     */
+    public void undo() {
+        if(history.undo(this) != null)
+            update();
     }
 
     /**
      * This method is called by the controller when the redo button is pressed on the view.
-     * It modifies the state of the model
+     * The most recently undone command is done again.
      */
     public void redo() {
-        //If there is something to be redone
-        if(!lastChange.empty()) {
-
-            //If the last action undone was creating a shape
-            if(((Action)lastChange.peek()).type == 'c'){
-                //The shape is recreated and added to the action stack again
-                shapes.add(((Action)lastChange.peek()).s);
-                actions.push(lastChange.pop());
-                update();
-            }
-            //If the last action undone was editing a shape
-            else if(((Action)lastChange.peek()).type == 'e') {
-                Action a = (Action) lastChange.pop();
-
-                //Since edits are saved as two entries in the stack, the first one is popped and then the second one is checked
-                if(!lastChange.empty()) {
-                    //If the second one is an edit, both are pushed onto the action stack and the old state is removed from the shapes array and the new one added to it
-                    if ((((Action) lastChange.peek()).type == 'e') && ((((Action) lastChange.peek()).s.equalColor(a.s))||(((Action) lastChange.peek()).s.equalPosition(a.s))||(((Action) lastChange.peek()).s.equalSize(a.s))||((Action) lastChange.peek()).s.equalStroke(a.s))) {
-                        shapes.remove(a.s);
-                        actions.push(a);
-                        a = (Action) lastChange.pop();
-                        shapes.add(a.s);
-                        actions.push(a);
-                    }
-                    //If the second one is not an edit, it's just added to the shapes array and actions stack
-                    else {
-                        shapes.add(a.s);
-                        actions.push(a);
-                    }
-                }
-                //If the lastChange stack is empty and this is the last action to be undone, it's just added to the shapes array and actions stack
-                else {
-                    shapes.remove(((Action)actions.peek()).s);
-                    shapes.add(a.s);
-                    actions.push(a);
-                }
-                update();
-            }
-            //If the last action undone was deleting a shape
-            else if (((Action)lastChange.peek()).type == 'd'){
-                //The shape is removed from the shape array and the action is added to the action stack
-                shapes.remove(((Action)lastChange.peek()).s);
-                actions.push(lastChange.pop());
-                update();
-            }
-        }
-
+        if(history.redo(this) != null)
+            update();
     }
 
     /**
-     * This method essentially resets the model by emptying its shapes array and its action and lastChange stacks.
+     * This method essentially resets the model by emptying its shapes array and its history.
      */
     public void clear() {
         shapes.clear();
-        actions.clear();
-        lastChange.clear();
+        index.clear();
+        spatialIndex.clear();
+        damageAll = true;
+        history.clear();
         update();
     }
 
     /**
      * This method is called when an existing shape is edited.
+     * The shape is found by the ID of its old state, and the new state takes over that ID.
      * @param newShape - the shape's state after the edit took place
      * @param oldShape - the shape's state before the edit took place
-     * @param changeType - the type of edit that took place
+     * @param changeType - the type of edit that took place (color, position, size, stroke width, or deletion)
      */
     public void modifyShapes(Shape newShape, Shape oldShape, int changeType){
-        int index = 0;
-        for(Shape n : shapes) {
-            switch (changeType){
-                //If the change is changing the shape's color
-                case 0:
-                    if (n.equalColor(oldShape)) {
-                        //This replaces the old shape with the new shape and adds the before and after states to the actions stack
-                        shapes.set(index, newShape);
-                        actions.push(new Action(oldShape, 'e'));
-                        actions.push(new Action(newShape, 'e'));
-                    }
-                    break;
-                //If the change is changing the shape's position
-                case 1:
-                    if (n.equalPosition(oldShape)) {
-                        //This replaces the old shape with the new shape and adds the before and after states to the actions stack
-                        shapes.set(index, newShape);
-                        actions.push(new Action(oldShape, 'e'));
-                        actions.push(new Action(newShape, 'e'));
-                    }
-                    break;
-                    //If the change is changing the shape's size
-                case 2:
-                    if (n.equalSize(oldShape)) {
-                        //This replaces the old shape with the new shape and adds the before and after states to the actions stack
-                        shapes.set(index, newShape);
-                        actions.push(new Action(oldShape, 'e'));
-                        actions.push(new Action(newShape, 'e'));
-                    }
-                    break;
-                    //If the change is changing the shape's stroke
-                case 3:
-                    if (n.equalStroke(oldShape)) {
-                        //This replaces the old shape with the new shape and adds the before and after states to the actions stack
-                        shapes.set(index, newShape);
-                        actions.push(new Action(oldShape, 'e'));
-                        actions.push(new Action(newShape, 'e'));
-                    }
-                    break;
-                    //If the change is deleting the shape
-                case 4:
-                    if(n.equalColor(newShape) && n.equalPosition(newShape) && n.equalSize(newShape) && n.equalStroke(newShape)) {
-                        //This adds the delete action to the actions stack
-                        actions.push(new Action(newShape, 'd'));
-                    }
-                    break;
-                default:
-                    break;
-            }
-            index++;
-        }
-        //If the shapes array is empty and the method was called, then the action performed must have been a delete
-        if(shapes.size() == 0) {
-            actions.push(new Action(newShape, 'd'));
+        switch (changeType){
+            //If the change is changing the shape's color, position, size or stroke
+            case 0:
+            case 1:
+            case 2:
+            case 3:
+                if(indexOf(oldShape.getId()) != -1) {
+                    //This replaces the old shape with the new shape and adds the fields that changed to the history,
+                    //unless none did, so there's no undo step that does nothing
+                    newShape.setId(oldShape.getId());
+                    replaceShape(oldShape.getId(), newShape);
+                    EditCommand edit = history.edit(oldShape, newShape);
+                    if(edit.getCount() > 0)
+                        history.record(edit);
+                    update();
+                }
+                break;
+            //If the change is deleting the shape, this adds the delete command to the history
+            case 4:
+                history.record(new DeleteCommand(newShape));
+                break;
+            default:
+                break;
         }
     }
 
     /**
-     * This method empties the lastChange stack so that no more redos can be done.
+     * This method forgets the commands that were undone so that no more redos can be done.
      */
     public void clearRedo(){
-        lastChange.clear();
+        history.clearRedo();
     }
 
     /**
@@ -389,33 +336,344 @@ public class Model extends Observable implements Serializable {
      * @param selectedShape - the shape to be deleted from the model
      */
     public void delete(Shape selectedShape){
-        int index = 0, shapeIndex = -1;
-
-        //This finds the index of the shape to be deleted in the model and then removes it from the model
-        for(Shape n: shapes) {
-            if(n.equalSize(selectedShape) && n.equalPosition(selectedShape) && n.equalStroke(selectedShape) && n.equalColor(selectedShape)){
-                shapeIndex = index;
-            }
-            index++;
-        }
-        shapes.remove(shapeIndex);
+        removeShape(selectedShape.getId());
         update();
     }
 
     /**
      * This method adds all the shapes of a given model to this models.
+     * Shapes that are already in this model (with the same ID) are replaced by the given model's version.
      * @param m - the model who's shapes should be added to this model
      */
     public void addShapes(Model m){
-        shapes.addAll(m.shapes);
+        for(int i = 0; i < m.shapes.size(); i++) {
+            Shape n = m.shapes.get(i);
+            if(indexOf(n.getId()) != -1)
+                replaceShape(n.getId(), n);
+            else
+                insertShape(n);
+        }
+    }
+
+    /**
+     * This method copies the model's shapes, without its history, so an export can read them on a background thread while this model
+     * keeps being edited on the event dispatch thread. The snapshot has its own store and indexes and its own copy of each shape,
+     * so nothing an edit changes in this model is shared with it while the export is reading it.
+     * @return a new model with copies of this model's shapes, in the same order and with the same IDs
+     */
+    public Model snapshot() {
+        Model snapshot = new Model();
+        for(int i = 0; i < shapes.size(); i++)
+            snapshot.insertShape(ShapeTypes.copy(shapes.get(i)));
+        return snapshot;
+    }
+
+    //////////////////////////// Shape index ///////////////////////////////
+
+    //The index maps each shape's ID to its slot in the shape store so that shapes can be found without scanning.
+    //Slots are in drawing order, so removing a shape shifts the slots of the shapes drawn after it, which the index works out
+    //from each shape's position rather than rewriting their entries.
+    //The spatial index keeps each shape's bounds so that the shapes at a point or in an area can be found without scanning.
+
+    /**
+     * Getter method for a shape in the model by its ID.
+     * @param id - the shape's ID
+     * @return the shape with that ID, or null if it is not in the model
+     */
+    public Shape getShape(long id) {
+        int slot = indexOf(id);
+        if(slot == -1)
+            return null;
+        return shapes.get(slot);
+    }
+
+    /**
+     * This method finds the slot of a shape in the shape store.
+     * @param id - the shape's ID
+     * @return the slot of the shape, or -1 if it is not in the model
+     */
+    public int indexOf(long id) {
+        return index.slotOf(id);
+    }
+
+    /**
+     * This method finds the shapes whose bounds contain a point.
+     * @param x - the point's x coordinate
+     * @param y - the point's y coordinate
+     * @return the slots of the shapes found, in drawing order
+     */
+    public int[] shapesAt(int x, int y) {
+        return toSlots(spatialIndex.search(x, y));
+    }
+
+    /**
+     * This method finds the shape drawn on top at a point. The shapes whose bounds contain the point are found through
+     * the spatial index, then checked against their exact outline from the top down, stopping at the first one the point is on.
+     * @param x - the point's x coordinate
+     * @param y - the point's y coordinate
+     * @return the slot of the top shape at the point, or -1 if there is none
+     */
+    public int shapeAt(int x, int y) {
+        int[] candidates = shapesAt(x, y);
+        for(int i = candidates.length - 1; i >= 0; i--) {
+            if(Geometry.contains(shapes, candidates[i], x, y))
+                return candidates[i];
+        }
+        return -1;
+    }
+
+    /**
+     * This method finds the shapes whose bounds intersect an area.
+     * @param area - the area to look in
+     * @return the slots of the shapes found, in drawing order
+     */
+    public int[] shapesIn(java.awt.Rectangle area) {
+        return toSlots(spatialIndex.search(area.x, area.y, area.x + area.width, area.y + area.height));
+    }
+
+    /**
+     * This method turns shape IDs found in the spatial index into slots in drawing order.
+     * @param ids - the shape IDs
+     * @return the slots of the shapes, sorted
+     */
+    private int[] toSlots(long[] ids) {
+        int[] slots = new int[ids.length];
+        for(int i = 0; i < ids.length; i++)
+            slots[i] = index.slotOf(ids[i]);
+        Arrays.sort(slots);
+        return slots;
+    }
+
+    /**
+     * This method adds a shape to the end of the shape store and indexes it.
+     * @param s - the shape to be added
+     */
+    void insertShape(Shape s) {
+        java.awt.Rectangle bounds = Geometry.bounds(s);
+        shapes.add(s);
+        index.add(s.getId());
+        spatialIndex.put(s.getId(), bounds);
+        addDamage(bounds);
+    }
+
+    /**
+     * This method puts a shape in the slot of the shape with the given ID.
+     * @param id - the ID of the shape to be replaced
+     * @param s - the shape to put in its place
+     */
+    void replaceShape(long id, Shape s) {
+        int slot = indexOf(id);
+        if(slot != -1) {
+            java.awt.Rectangle bounds = Geometry.bounds(s);
+            addDamage(Geometry.bounds(shapes, slot));
+            shapes.set(slot, s);
+            spatialIndex.put(id, bounds);
+            addDamage(bounds);
+        }
+    }
+
+    /**
+     * This method removes the shape with the given ID and moves the shapes after it down a slot.
+     * @param id - the ID of the shape to be removed
+     */
+    void removeShape(long id) {
+        int slot = index.remove(id);
+        if(slot == -1)
+            return;
+        addDamage(Geometry.bounds(shapes, slot));
+        shapes.remove(slot);
+        spatialIndex.remove(id);
+    }
+
+    //////////////////////////// Saving and loading ///////////////////////////////
+
+    /**
+     * This method writes the model to a file or across the network.
+     * @param out - the stream the model is written to
+     * @throws IOException
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("history", history);
+        fields.put("store", shapes);
+        out.writeFields();
+    }
+
+    /**
+     * Setter method for where the canvas is in the window, which the shapes of files saved before there were shape stores are moved by
+     * when they're loaded. Those files were drawn on the window rather than the canvas, so their shapes were measured from the window's corner.
+     * @param x - how far the canvas is from the left of the window
+     * @param y - how far the canvas is from the top of the window
+     */
+    public static void setLegacyOrigin(int x, int y) {
+        legacyOrigin = new java.awt.Point(x, y);
+    }
+
+    /**
+     * This method reads the model and rebuilds the index after the model is loaded from a file or received over the network.
+     * Shapes saved before shapes had IDs are given new ones, and shapes saved before there were shape stores are moved from where
+     * they were on the window to the same place on the canvas.
+     * @param in - the stream the model is read from
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        history = (History) fields.get("history", null);
+        shapes = (ShapeStore) fields.get("store", null);
+        if(shapes == null) {
+            ArrayList<Shape> saved = new ArrayList<>();
+            for(Object o : (ArrayList<?>) fields.get("shapes", null))
+                saved.add((Shape) o);
+            //The same shape can be in the list and the actions, and is only moved once
+            Set<Shape> moved = Collections.newSetFromMap(new IdentityHashMap<>());
+            java.awt.Point origin = legacyOrigin;
+            for(Shape n : saved) {
+                if(n.getId() == 0)
+                    n.setId(Shape.newId());
+                toCanvas(n, origin, moved);
+            }
+            if(history == null) {
+                for(String stack : new String[] { "actions", "lastChange" }) {
+                    Stack<?> actions = (Stack<?>) fields.get(stack, null);
+                    if(actions != null) {
+                        for(Object a : actions)
+                            toCanvas(((Action) a).s, origin, moved);
+                    }
+                }
+            }
+            shapes = new ListShapeStore(saved);
+        }
+        index = new SlotIndex();
+        spatialIndex = new RTree();
+        for(int i = 0; i < shapes.size(); i++) {
+            index.add(shapes.getId(i));
+            spatialIndex.put(shapes.getId(i), Geometry.bounds(shapes, i));
+        }
+        if(history == null)
+            history = toHistory((Stack<?>) fields.get("actions", null), (Stack<?>) fields.get("lastChange", null));
+        history.attach(this);
+    }
+
+    /**
+     * This method moves a shape saved before there were shape stores from where it was on the window to the same place on the canvas.
+     * @param n - the shape
+     * @param origin - where the canvas is in the window
+     * @param moved - the shapes already moved, which the shape is added to
+     */
+    private static void toCanvas(Shape n, java.awt.Point origin, Set<Shape> moved) {
+        if(n == null || !moved.add(n) || (origin.x == 0 && origin.y == 0))
+            return;
+        if(n.getShapeType().equals("Line")) {
+            //Lines go from (startX, endX) to (startY, endY)
+            n.setStartX(n.getStartX() - origin.x);
+            n.setEndX(n.getEndX() - origin.y);
+            n.setStartY(n.getStartY() - origin.x);
+            n.setEndY(n.getEndY() - origin.y);
+        } else {
+            n.setStartX(n.getStartX() - origin.x);
+            n.setStartY(n.getStartY() - origin.y);
+            n.setEndX(n.getEndX() - origin.x);
+            n.setEndY(n.getEndY() - origin.y);
+        }
+    }
+
+    /**
+     * This method turns the action stacks of a file saved before there were commands into a history.
+     * Edits were saved as two actions, the old shape state followed by the new one, which become one edit command.
+     * Actions saved before shapes had IDs are given the IDs of their shapes, or new ones.
+     * @param actions - the stack of actions that can be undone
+     * @param lastChange - the stack of actions that can be redone
+     * @return the history
+     */
+    private static History toHistory(Stack<?> actions, Stack<?> lastChange) {
+        History history = new History();
+        //Each saved edit was its own action, so they aren't merged however quickly they're added
+        history.setGestureMillis(0);
+        if(actions != null) {
+            for(Object o : actions) {
+                Action a = (Action) o;
+                if(a.id == 0) {
+                    if(a.s.getId() == 0)
+                        a.s.setId(Shape.newId());
+                    a.id = a.s.getId();
+                }
+            }
+            for(int i = 0; i < actions.size(); i++) {
+                Action a = (Action) actions.get(i);
+                Action next = i + 1 < actions.size() ? (Action) actions.get(i + 1) : null;
+                if(a.type == 'e' && next != null && next.type == 'e' && next.id == a.id) {
+                    history.record(history.edit(a.s, next.s));
+                    i++;
+                } else {
+                    history.record(toCommand(a));
+                }
+            }
+        }
+        if(lastChange != null) {
+            //The action on top is redone first, and undone edits have their old state on top of their new one
+            ArrayList<Command> redo = new ArrayList<>();
+            for(int i = lastChange.size() - 1; i >= 0; i--) {
+                Action a = (Action) lastChange.get(i);
+                Action next = i > 0 ? (Action) lastChange.get(i - 1) : null;
+                if(a.type == 'e' && next != null && next.type == 'e' && next.id == a.id) {
+                    redo.add(history.edit(a.s, next.s));
+                    i--;
+                } else {
+                    redo.add(toCommand(a));
+                }
+            }
+            for(int i = redo.size() - 1; i >= 0; i--)
+                history.recordUndone(redo.get(i));
+        }
+        history.setGestureMillis(History.DEFAULT_GESTURE_MILLIS);
+        return history;
+    }
+
+    /**
+     * This method turns a saved create or delete action into a command. An edit saved without its other state was undone by removing
+     * the shape and redone by adding it, like a shape being created.
+     * @param a - the action
+     * @return the command
+     */
+    private static Command toCommand(Action a) {
+        if(a.type == 'd')
+            return new DeleteCommand(a.s);
+        return new CreateCommand(a.s);
     }
 
     /**
      * This method is called whenever a change is made to the model.
-     * It notifies the model's observers (the view) that a change has happened so that this can be reflected in the view
+     * It notifies the model's observers (the view) that a change has happened so that this can be reflected in the view.
+     * The observers are passed the area of the canvas that changed since the last update (the old and new bounds of every
+     * shape that was added, removed, or edited), or null if the whole canvas changed.
+     * During a batch nothing is notified, and the area keeps growing until the batch is committed.
      */
     private void update(){
+        if(batchDepth > 0)
+            return;
+        java.awt.Rectangle changed = damageAll ? null : (damage != null ? damage : new java.awt.Rectangle());
+        damage = null;
+        damageAll = false;
         this.setChanged();
-        this.notifyObservers();
+        if(PerformanceCounters.isEnabled()) {
+            long start = System.nanoTime();
+            this.notifyObservers(changed);
+            PerformanceCounters.notifyNanos.add(System.nanoTime() - start);
+            PerformanceCounters.notifications.increment();
+        } else {
+            this.notifyObservers(changed);
+        }
+    }
+
+    /**
+     * This method adds an area of the canvas that has changed to the area the next update reports.
+     * @param bounds - the bounds of a shape that was added, removed, or changed
+     */
+    private void addDamage(java.awt.Rectangle bounds) {
+        if(damage == null)
+            damage = new java.awt.Rectangle(bounds);
+        else
+            damage.add(bounds);
     }
 }
@@ -0,0 +1,287 @@
+package Models;
+
+import java.awt.*;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * This class is a shape store that keeps the shapes outside the Java heap, in a direct byte buffer, so that the garbage collector
+ * doesn't have to trace them on very large canvases.
+ * Each shape is a fixed width record, and the number of sides of polygons is kept in a separate table keyed by shape ID
+ * since only polygons have one.
+ * Shapes are created from the records when they are asked for, so changes to them have to go through the model.
+ * @author malaksadek
+ */
+public class OffHeapShapeStore implements ShapeStore {
+    private static final long serialVersionUID = 1;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final byte HAS_FILL = 1, HAS_STROKE = 2, EQUILATERAL = 4;
+
+    //Record layout, in bytes
+    private static final int ID = 0, TYPE = 8, FLAGS = 9, START_X = 12, START_Y = 16, END_X = 20, END_Y = 24,
+            STROKE_WIDTH = 28, FILL_COLOR = 32, STROKE_COLOR = 36, RECORD_SIZE = 40;
+
+    private transient ByteBuffer records;
+    private transient int size;
+    private HashMap<Long, Integer> numberOfSides;
+
+    /**
+     * Constructor for the class, creates an empty store.
+     */
+    public OffHeapShapeStore() {
+        records = allocate(INITIAL_CAPACITY);
+        numberOfSides = new HashMap<>();
+    }
+
+    /**
+     * This method creates a direct buffer for the given number of records.
+     * @param capacity - the number of records the buffer can hold
+     * @return the buffer
+     */
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * RECORD_SIZE).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * This method moves the records to a buffer with double the capacity if the buffer is full.
+     */
+    private void ensureCapacity() {
+        if((size + 1) * RECORD_SIZE <= records.capacity())
+            return;
+        int capacity = records.capacity() / RECORD_SIZE;
+        if(capacity > Integer.MAX_VALUE / RECORD_SIZE / 2)
+            throw new IllegalStateException("Off-heap shape store is full");
+        ByteBuffer grown = allocate(Math.max(capacity * 2, INITIAL_CAPACITY));
+        ByteBuffer used = records.duplicate();
+        used.position(0).limit(size * RECORD_SIZE);
+        grown.put(used);
+        records = grown;
+    }
+
+    /**
+     * This method finds the offset of a slot's record in the buffer.
+     * @param slot - the shape's slot
+     * @return the offset in bytes
+     */
+    private static int offset(int slot) {
+        return slot * RECORD_SIZE;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Shape get(int slot) {
+        checkSlot(slot);
+        return ShapeTypes.create(getId(slot), getType(slot), getStartX(slot), getStartY(slot), getEndX(slot), getEndY(slot),
+                getStrokeWidth(slot),
+                hasFillColor(slot) ? new Color(getFillColor(slot), true) : null,
+                hasStrokeColor(slot) ? new Color(getStrokeColor(slot), true) : null,
+                getExtra(slot));
+    }
+
+    @Override
+    public void add(Shape s) {
+        ensureCapacity();
+        write(size, s);
+        size++;
+    }
+
+    @Override
+    public void set(int slot, Shape s) {
+        checkSlot(slot);
+        numberOfSides.remove(getId(slot));
+        write(slot, s);
+    }
+
+    /**
+     * This method writes a shape into a slot's record, and its number of sides into the side table if it's a polygon.
+     * @param slot - the slot to write to
+     * @param s - the shape to write
+     */
+    private void write(int slot, Shape s) {
+        int o = offset(slot);
+        byte type = ShapeTypes.tagOf(s.getShapeType());
+        byte flags = 0;
+        if(s.getFillColor() != null)
+            flags |= HAS_FILL;
+        if(s.getStrokeColor() != null)
+            flags |= HAS_STROKE;
+        if(type == ShapeTypes.TRIANGLE && ShapeTypes.extraOf(s) != 0)
+            flags |= EQUILATERAL;
+
+        records.putLong(o + ID, s.getId());
+        records.put(o + TYPE, type);
+        records.put(o + FLAGS, flags);
+        records.putInt(o + START_X, s.getStartX());
+        records.putInt(o + START_Y, s.getStartY());
+        records.putInt(o + END_X, s.getEndX());
+        records.putInt(o + END_Y, s.getEndY());
+        records.putInt(o + STROKE_WIDTH, s.getStrokeWidth());
+        records.putInt(o + FILL_COLOR, s.getFillColor() != null ? s.getFillColor().getRGB() : 0);
+        records.putInt(o + STROKE_COLOR, s.getStrokeColor() != null ? s.getStrokeColor().getRGB() : 0);
+
+        if(type == ShapeTypes.POLYGON)
+            numberOfSides.put(s.getId(), ShapeTypes.extraOf(s));
+    }
+
+    @Override
+    public void remove(int slot) {
+        checkSlot(slot);
+        numberOfSides.remove(getId(slot));
+        ByteBuffer after = records.duplicate();
+        after.position(offset(slot + 1)).limit(offset(size));
+        ByteBuffer target = records.duplicate();
+        target.position(offset(slot));
+        target.put(after);
+        size--;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        records = allocate(INITIAL_CAPACITY);
+        numberOfSides.clear();
+    }
+
+    @Override
+    public List<Shape> asList() {
+        return new ShapeStoreList(this);
+    }
+
+    /**
+     * This method checks that a slot holds a shape.
+     * @param slot - the slot to check
+     * @throws IndexOutOfBoundsException if the slot is empty
+     */
+    private void checkSlot(int slot) {
+        if(slot < 0 || slot >= size)
+            throw new IndexOutOfBoundsException("Slot: " + slot + ", Size: " + size);
+    }
+
+    ////////////// Attribute getter methods //////////////
+
+    @Override
+    public long getId(int slot) {
+        return records.getLong(offset(slot) + ID);
+    }
+
+    @Override
+    public byte getType(int slot) {
+        return records.get(offset(slot) + TYPE);
+    }
+
+    @Override
+    public int getStartX(int slot) {
+        return records.getInt(offset(slot) + START_X);
+    }
+
+    @Override
+    public int getStartY(int slot) {
+        return records.getInt(offset(slot) + START_Y);
+    }
+
+    @Override
+    public int getEndX(int slot) {
+        return records.getInt(offset(slot) + END_X);
+    }
+
+    @Override
+    public int getEndY(int slot) {
+        return records.getInt(offset(slot) + END_Y);
+    }
+
+    @Override
+    public int getStrokeWidth(int slot) {
+        return records.getInt(offset(slot) + STROKE_WIDTH);
+    }
+
+    @Override
+    public boolean hasFillColor(int slot) {
+        return (records.get(offset(slot) + FLAGS) & HAS_FILL) != 0;
+    }
+
+    @Override
+    public int getFillColor(int slot) {
+        return records.getInt(offset(slot) + FILL_COLOR);
+    }
+
+    @Override
+    public boolean hasStrokeColor(int slot) {
+        return (records.get(offset(slot) + FLAGS) & HAS_STROKE) != 0;
+    }
+
+    @Override
+    public int getStrokeColor(int slot) {
+        return records.getInt(offset(slot) + STROKE_COLOR);
+    }
+
+    @Override
+    public int getExtra(int slot) {
+        byte type = getType(slot);
+        if(type == ShapeTypes.POLYGON)
+            return numberOfSides.getOrDefault(getId(slot), 0);
+        if(type == ShapeTypes.TRIANGLE)
+            return (records.get(offset(slot) + FLAGS) & EQUILATERAL) != 0 ? 1 : 0;
+        return 0;
+    }
+
+    ////////////// Serialization methods //////////////
+
+    //Only the used records are written, and they are read back into a new direct buffer
+
+    /**
+     * This method writes the store to a stream.
+     * @param out - the stream the store is written to
+     * @throws IOException
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        //Records are written field by field so that files don't depend on the machine's byte order
+        for(int slot = 0; slot < size; slot++) {
+            out.writeLong(getId(slot));
+            out.writeByte(getType(slot));
+            out.writeByte(records.get(offset(slot) + FLAGS));
+            out.writeInt(getStartX(slot));
+            out.writeInt(getStartY(slot));
+            out.writeInt(getEndX(slot));
+            out.writeInt(getEndY(slot));
+            out.writeInt(getStrokeWidth(slot));
+            out.writeInt(getFillColor(slot));
+            out.writeInt(getStrokeColor(slot));
+        }
+    }
+
+    /**
+     * This method reads the store from a stream.
+     * @param in - the stream the store is read from
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        size = in.readInt();
+        records = allocate(Math.max(size, INITIAL_CAPACITY));
+        for(int slot = 0; slot < size; slot++) {
+            int o = offset(slot);
+            records.putLong(o + ID, in.readLong());
+            records.put(o + TYPE, in.readByte());
+            records.put(o + FLAGS, in.readByte());
+            records.putInt(o + START_X, in.readInt());
+            records.putInt(o + START_Y, in.readInt());
+            records.putInt(o + END_X, in.readInt());
+            records.putInt(o + END_Y, in.readInt());
+            records.putInt(o + STROKE_WIDTH, in.readInt());
+            records.putInt(o + FILL_COLOR, in.readInt());
+            records.putInt(o + STROKE_COLOR, in.readInt());
+        }
+    }
+}
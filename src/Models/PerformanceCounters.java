@@ -0,0 +1,52 @@
+package Models;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class counts what the model and the drawing code spend their time on, for the performance overlay.
+ * Counting is off until the overlay is shown: while it's off each counted place only reads the enabled flag,
+ * and while it's on counts are added to striped counters so drawing threads don't wait on each other.
+ */
+public final class PerformanceCounters {
+
+    private static volatile boolean enabled = false;
+
+    public static final LongAdder outlineHits = new LongAdder(), outlineMisses = new LongAdder();
+    public static final LongAdder strokeHits = new LongAdder(), strokeMisses = new LongAdder();
+    public static final LongAdder shapesCulled = new LongAdder();
+    public static final LongAdder notifications = new LongAdder(), notifyNanos = new LongAdder();
+
+    private PerformanceCounters() {
+    }
+
+    /**
+     * Getter method for whether counting is on.
+     * @return true if the counters are being added to
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Setter method for whether counting is on. Turning it on starts every counter from zero.
+     * @param enabled - true to count, false to stop counting
+     */
+    public static void setEnabled(boolean enabled) {
+        if(enabled && !PerformanceCounters.enabled)
+            reset();
+        PerformanceCounters.enabled = enabled;
+    }
+
+    /**
+     * This method sets every counter back to zero.
+     */
+    public static void reset() {
+        outlineHits.reset();
+        outlineMisses.reset();
+        strokeHits.reset();
+        strokeMisses.reset();
+        shapesCulled.reset();
+        notifications.reset();
+        notifyNanos.reset();
+    }
+}
@@ -0,0 +1,392 @@
+package Models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * This class is an R-tree of shape bounds, used by the model to find the shapes at a point or in an area
+ * without checking every shape.
+ * Entries are shape IDs with a rectangle each, grouped into nodes of at most MAX_ENTRIES whose bounds cover their entries.
+ * Overfull nodes are split with Guttman's quadratic split, and underfull nodes are removed and their entries inserted again.
+ * @author malaksadek
+ */
+public class RTree {
+    private static final int MAX_ENTRIES = 16, MIN_ENTRIES = 6;
+
+    /**
+     * A node of the tree. Each entry has a rectangle, and is a shape ID in leaves or a child node otherwise.
+     */
+    private static class Node {
+        Node parent;
+        final boolean leaf;
+        int count;
+        final int[] minX = new int[MAX_ENTRIES + 1], minY = new int[MAX_ENTRIES + 1], maxX = new int[MAX_ENTRIES + 1], maxY = new int[MAX_ENTRIES + 1];
+        final long[] ids;
+        final Node[] children;
+
+        Node(boolean leaf) {
+            this.leaf = leaf;
+            ids = leaf ? new long[MAX_ENTRIES + 1] : null;
+            children = leaf ? null : new Node[MAX_ENTRIES + 1];
+        }
+    }
+
+    private Node root;
+    private final HashMap<Long, Node> leaves;
+
+    /**
+     * Constructor for the class, creates an empty tree.
+     */
+    public RTree() {
+        root = new Node(true);
+        leaves = new HashMap<>();
+    }
+
+    /**
+     * Getter method for the number of shapes in the tree.
+     * @return the number of shapes
+     */
+    public int size() {
+        return leaves.size();
+    }
+
+    /**
+     * This method removes all shapes from the tree.
+     */
+    public void clear() {
+        root = new Node(true);
+        leaves.clear();
+    }
+
+    /**
+     * This method adds a shape to the tree, or moves it if it's already in the tree.
+     * @param id - the shape's ID
+     * @param bounds - the shape's bounds
+     */
+    public void put(long id, java.awt.Rectangle bounds) {
+        remove(id);
+        insert(id, bounds.x, bounds.y, bounds.x + bounds.width, bounds.y + bounds.height);
+    }
+
+    /**
+     * This method removes a shape from the tree.
+     * @param id - the shape's ID
+     */
+    public void remove(long id) {
+        Node leaf = leaves.remove(id);
+        if(leaf == null)
+            return;
+        for(int i = 0; i < leaf.count; i++) {
+            if(leaf.ids[i] == id) {
+                removeEntry(leaf, i);
+                break;
+            }
+        }
+        condense(leaf);
+    }
+
+    /**
+     * This method finds the shapes whose bounds contain a point.
+     * @param x - the point's x coordinate
+     * @param y - the point's y coordinate
+     * @return the IDs of the shapes found, in no particular order
+     */
+    public long[] search(int x, int y) {
+        return search(x, y, x, y);
+    }
+
+    /**
+     * This method finds the shapes whose bounds intersect an area.
+     * @param x1 - the area's smallest x coordinate
+     * @param y1 - the area's smallest y coordinate
+     * @param x2 - the area's largest x coordinate
+     * @param y2 - the area's largest y coordinate
+     * @return the IDs of the shapes found, in no particular order
+     */
+    public long[] search(int x1, int y1, int x2, int y2) {
+        long[] found = new long[16];
+        int count = 0;
+        ArrayList<Node> stack = new ArrayList<>();
+        stack.add(root);
+        while(!stack.isEmpty()) {
+            Node n = stack.remove(stack.size() - 1);
+            for(int i = 0; i < n.count; i++) {
+                if(n.minX[i] > x2 || n.maxX[i] < x1 || n.minY[i] > y2 || n.maxY[i] < y1)
+                    continue;
+                if(n.leaf) {
+                    if(count == found.length)
+                        found = Arrays.copyOf(found, count * 2);
+                    found[count++] = n.ids[i];
+                } else {
+                    stack.add(n.children[i]);
+                }
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    ////////////// Inserting //////////////
+
+    /**
+     * This method inserts a shape into the leaf that fits it best, splitting the leaf if it becomes overfull.
+     */
+    private void insert(long id, int x1, int y1, int x2, int y2) {
+        Node n = chooseLeaf(x1, y1, x2, y2);
+        int i = n.count++;
+        n.minX[i] = x1;
+        n.minY[i] = y1;
+        n.maxX[i] = x2;
+        n.maxY[i] = y2;
+        n.ids[i] = id;
+        leaves.put(id, n);
+
+        if(n.count > MAX_ENTRIES)
+            split(n);
+        else
+            adjustUpwards(n);
+    }
+
+    /**
+     * This method goes down from the root to the leaf, taking the child whose bounds need the least enlargement to fit the entry each time.
+     */
+    private Node chooseLeaf(int x1, int y1, int x2, int y2) {
+        Node n = root;
+        while(!n.leaf) {
+            int best = 0;
+            long bestGrowth = Long.MAX_VALUE, bestArea = Long.MAX_VALUE;
+            for(int i = 0; i < n.count; i++) {
+                long area = area(n.minX[i], n.minY[i], n.maxX[i], n.maxY[i]);
+                long growth = area(Math.min(x1, n.minX[i]), Math.min(y1, n.minY[i]), Math.max(x2, n.maxX[i]), Math.max(y2, n.maxY[i])) - area;
+                if(growth < bestGrowth || (growth == bestGrowth && area < bestArea)) {
+                    best = i;
+                    bestGrowth = growth;
+                    bestArea = area;
+                }
+            }
+            n = n.children[best];
+        }
+        return n;
+    }
+
+    /**
+     * This method splits an overfull node in two with the quadratic split, and carries on up the tree.
+     */
+    private void split(Node n) {
+        int total = n.count;
+        Node sibling = new Node(n.leaf);
+
+        //The two entries that would waste the most area together start the two groups
+        int seedA = 0, seedB = 1;
+        long worst = Long.MIN_VALUE;
+        for(int i = 0; i < total; i++) {
+            for(int j = i + 1; j < total; j++) {
+                long waste = area(Math.min(n.minX[i], n.minX[j]), Math.min(n.minY[i], n.minY[j]), Math.max(n.maxX[i], n.maxX[j]), Math.max(n.maxY[i], n.maxY[j]))
+                        - area(n.minX[i], n.minY[i], n.maxX[i], n.maxY[i]) - area(n.minX[j], n.minY[j], n.maxX[j], n.maxY[j]);
+                if(waste > worst) {
+                    worst = waste;
+                    seedA = i;
+                    seedB = j;
+                }
+            }
+        }
+
+        //Every other entry goes to the group whose bounds grow the least, unless a group needs the rest to reach the minimum
+        boolean[] toSibling = new boolean[total];
+        toSibling[seedB] = true;
+        int[] a = { n.minX[seedA], n.minY[seedA], n.maxX[seedA], n.maxY[seedA] };
+        int[] b = { n.minX[seedB], n.minY[seedB], n.maxX[seedB], n.maxY[seedB] };
+        int countA = 1, countB = 1, left = total - 2;
+        for(int i = 0; i < total; i++) {
+            if(i == seedA || i == seedB)
+                continue;
+            boolean goB;
+            if(countA + left <= MIN_ENTRIES)
+                goB = false;
+            else if(countB + left <= MIN_ENTRIES)
+                goB = true;
+            else
+                goB = growth(b, n, i) < growth(a, n, i);
+            int[] group = goB ? b : a;
+            group[0] = Math.min(group[0], n.minX[i]);
+            group[1] = Math.min(group[1], n.minY[i]);
+            group[2] = Math.max(group[2], n.maxX[i]);
+            group[3] = Math.max(group[3], n.maxY[i]);
+            toSibling[i] = goB;
+            left--;
+            if(goB)
+                countB++;
+            else
+                countA++;
+        }
+
+        //The entries going to the sibling are moved out, and the rest are packed down
+        int kept = 0;
+        for(int i = 0; i < total; i++) {
+            if(toSibling[i])
+                moveEntry(n, i, sibling, sibling.count++);
+            else
+                moveEntry(n, i, n, kept++);
+        }
+        n.count = kept;
+        if(!n.leaf)
+            Arrays.fill(n.children, kept, total, null);
+
+        if(n == root) {
+            Node newRoot = new Node(false);
+            root = newRoot;
+            addChild(newRoot, n);
+            addChild(newRoot, sibling);
+        } else {
+            Node parent = n.parent;
+            updateBounds(parent, indexInParent(n), n);
+            int i = parent.count++;
+            parent.children[i] = sibling;
+            sibling.parent = parent;
+            updateBounds(parent, i, sibling);
+            if(parent.count > MAX_ENTRIES)
+                split(parent);
+            else
+                adjustUpwards(parent);
+        }
+    }
+
+    /**
+     * This method works out how much a group's bounds would grow by adding an entry.
+     */
+    private static long growth(int[] group, Node n, int i) {
+        return area(Math.min(group[0], n.minX[i]), Math.min(group[1], n.minY[i]), Math.max(group[2], n.maxX[i]), Math.max(group[3], n.maxY[i]))
+                - area(group[0], group[1], group[2], group[3]);
+    }
+
+    /**
+     * This method copies an entry from one node to another, keeping the leaf map and parent links up to date.
+     */
+    private void moveEntry(Node from, int i, Node to, int j) {
+        to.minX[j] = from.minX[i];
+        to.minY[j] = from.minY[i];
+        to.maxX[j] = from.maxX[i];
+        to.maxY[j] = from.maxY[i];
+        if(from.leaf) {
+            to.ids[j] = from.ids[i];
+            if(to != from)
+                leaves.put(to.ids[j], to);
+        } else {
+            to.children[j] = from.children[i];
+            to.children[j].parent = to;
+        }
+    }
+
+    /**
+     * This method adds a node as the last child of another node.
+     */
+    private static void addChild(Node parent, Node child) {
+        int i = parent.count++;
+        parent.children[i] = child;
+        child.parent = parent;
+        updateBounds(parent, i, child);
+    }
+
+    ////////////// Removing //////////////
+
+    /**
+     * This method removes an entry from a node by moving the last entry into its place.
+     */
+    private void removeEntry(Node n, int i) {
+        int last = --n.count;
+        if(i != last)
+            moveEntry(n, last, n, i);
+        if(!n.leaf)
+            n.children[last] = null;
+    }
+
+    /**
+     * This method goes up the tree from a node an entry was removed from, removing nodes that have become underfull
+     * and inserting their entries again, and shrinking the bounds of the others.
+     */
+    private void condense(Node n) {
+        ArrayList<Node> orphans = new ArrayList<>();
+        while(n != root) {
+            Node parent = n.parent;
+            int i = indexInParent(n);
+            if(n.count < MIN_ENTRIES) {
+                removeEntry(parent, i);
+                orphans.add(n);
+            } else {
+                updateBounds(parent, i, n);
+            }
+            n = parent;
+        }
+
+        //If the root only has one child left, that child becomes the root
+        while(!root.leaf && root.count == 1) {
+            root = root.children[0];
+            root.parent = null;
+        }
+        if(!root.leaf && root.count == 0)
+            root = new Node(true);
+
+        for(Node orphan : orphans)
+            reinsert(orphan);
+    }
+
+    /**
+     * This method inserts every shape under a node that was removed from the tree again.
+     */
+    private void reinsert(Node n) {
+        for(int i = 0; i < n.count; i++) {
+            if(n.leaf)
+                insert(n.ids[i], n.minX[i], n.minY[i], n.maxX[i], n.maxY[i]);
+            else
+                reinsert(n.children[i]);
+        }
+    }
+
+    ////////////// Bounds //////////////
+
+    /**
+     * This method finds where a node is among its parent's entries.
+     */
+    private static int indexInParent(Node n) {
+        Node parent = n.parent;
+        for(int i = 0; i < parent.count; i++) {
+            if(parent.children[i] == n)
+                return i;
+        }
+        throw new IllegalStateException("Node is not in its parent");
+    }
+
+    /**
+     * This method sets a parent's entry for a node to the bounds of the node's entries.
+     */
+    private static void updateBounds(Node parent, int i, Node n) {
+        int x1 = Integer.MAX_VALUE, y1 = Integer.MAX_VALUE, x2 = Integer.MIN_VALUE, y2 = Integer.MIN_VALUE;
+        for(int j = 0; j < n.count; j++) {
+            x1 = Math.min(x1, n.minX[j]);
+            y1 = Math.min(y1, n.minY[j]);
+            x2 = Math.max(x2, n.maxX[j]);
+            y2 = Math.max(y2, n.maxY[j]);
+        }
+        parent.minX[i] = x1;
+        parent.minY[i] = y1;
+        parent.maxX[i] = x2;
+        parent.maxY[i] = y2;
+    }
+
+    /**
+     * This method updates the bounds of every node from the given one up to the root.
+     */
+    private static void adjustUpwards(Node n) {
+        while(n.parent != null) {
+            updateBounds(n.parent, indexInParent(n), n);
+            n = n.parent;
+        }
+    }
+
+    /**
+     * This method works out the area of a rectangle, as a long so that large canvases don't overflow.
+     */
+    private static long area(int x1, int y1, int x2, int y2) {
+        return (long) (x2 - x1) * (y2 - y1);
+    }
+}
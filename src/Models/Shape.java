@@ -2,6 +2,8 @@ package Models;
 
 import java.awt.*;
 import java.io.Serializable;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class represents a shape object and all specific shape objects inherit from it.
@@ -9,15 +11,26 @@ import java.io.Serializable;
  */
 public class Shape implements Serializable {
     private static final long serialVersionUID = 2;
+
+    //IDs are a random 32 bit session prefix followed by a 32 bit counter, so that shapes created by different
+    //instances of the program (loaded from a file or merged in through syncing) don't collide. 0 means unassigned.
+    private static final AtomicLong nextId = new AtomicLong(((long) new Random().nextInt()) << 32);
+
+    private long id;
     private int startX, startY, endX, endY, strokeWidth;
     String shapeType;
     private Color fillColor, strokeColor;
 
+    //The outline the shape is drawn with, built the first time it's drawn and thrown away when the shape's coordinates change.
+    //It's volatile because canvas tiles are drawn on several threads at once
+    private transient volatile java.awt.Shape outline;
+
     /**
      * Constructor for the class which takes a shape and creates one like it.
      * @param s - the shape to be copied
      */
     public Shape(Shape s){
+        this.id = s.id;
         this.startX = s.startX;
         this.startY = s.startY;
         this.endX = s.endX;
@@ -48,10 +61,30 @@ public class Shape implements Serializable {
         this.strokeColor = strokeColor;
         this.strokeWidth = strokeWidth;
         this.shapeType = shapeType;
+        this.id = newId();
+    }
+
+    /**
+     * This method generates a new unique shape ID.
+     * @return a new non-zero ID
+     */
+    static long newId() {
+        long id = nextId.incrementAndGet();
+        if(id == 0)
+            id = nextId.incrementAndGet();
+        return id;
     }
 
     ////////////// Getter methods //////////////
 
+    /**
+     * Getter method for the shape's ID, which stays the same across copies and edits of the shape.
+     * @return id
+     */
+    public long getId() {
+        return id;
+    }
+
     /**
      * Getter method for the fill color.
      * @return fillColor
@@ -116,14 +149,40 @@ public class Shape implements Serializable {
         return shapeType;
     }
 
+    /**
+     * Getter method for the outline the shape is drawn with. It is built the first time it's needed and kept until the shape's coordinates change,
+     * so drawing the shape again doesn't work its corners out again. The outline is shared, so it shouldn't be modified.
+     * @return the shape's outline
+     */
+    public java.awt.Shape getOutline() {
+        java.awt.Shape o = outline;
+        if(o == null) {
+            outline = o = Geometry.outline(ShapeTypes.tagOf(shapeType), startX, startY, endX, endY, ShapeTypes.extraOf(this));
+            if(PerformanceCounters.isEnabled())
+                PerformanceCounters.outlineMisses.increment();
+        } else if(PerformanceCounters.isEnabled()) {
+            PerformanceCounters.outlineHits.increment();
+        }
+        return o;
+    }
+
     ////////////// Setter methods //////////////
 
+    /**
+     * Setter method for the shape's ID, used by the model so that the new state of an edited shape keeps the same ID.
+     * @param id - the shape's ID
+     */
+    void setId(long id) {
+        this.id = id;
+    }
+
     /**
      * Setter method for the shape's end x coordinate.
      * @param endX - the shape's end x coordinate
      */
     public void setEndX(int endX) {
         this.endX = endX;
+        this.outline = null;
     }
 
     /**
@@ -132,6 +191,7 @@ public class Shape implements Serializable {
      */
     public void setEndY(int endY) {
         this.endY = endY;
+        this.outline = null;
     }
 
     /**
@@ -148,6 +208,7 @@ public class Shape implements Serializable {
      */
     public void setStartX(int startX) {
         this.startX = startX;
+        this.outline = null;
     }
 
     /**
@@ -156,6 +217,7 @@ public class Shape implements Serializable {
      */
     public void setStartY(int startY) {
         this.startY = startY;
+        this.outline = null;
     }
 
     /**
@@ -176,9 +238,8 @@ public class Shape implements Serializable {
 
     ////////////// Equality methods //////////////
 
-    //These are used to be able to identify the same shape before and after a change has been done to it
-    //The assumption is that if two shapes are the same across all attributes except the changed one, they are deemed equivalent.
-    //This is not ideal, but works for most cases. There are methods for when the change is in the:
+    //These compare two shapes across all attributes except the changed one. The model identifies shapes by their ID,
+    //these are kept for comparing shape states. There are methods for when the change is in the:
     //Color, position, size, and stroke - since these are the things the user can change in a shape
 
     /**
@@ -0,0 +1,144 @@
+package Models;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * This interface represents the storage behind the model's shapes, kept in drawing order and addressed by slot.
+ * Besides getting whole shapes, it gives access to each shape attribute as a primitive so that rendering and hit-testing
+ * can scan a store without creating shape objects.
+ * The model keeps the index from shape IDs to slots, stores only keep the shapes themselves.
+ * @author malaksadek
+ */
+public interface ShapeStore extends Serializable {
+
+    /**
+     * Getter method for the number of shapes in the store.
+     * @return the number of shapes
+     */
+    int size();
+
+    /**
+     * Getter method for the shape in a slot. Stores that don't keep shape objects create a new one on each call,
+     * so changing the returned shape does not change the store.
+     * @param slot - the shape's slot
+     * @return the shape in that slot
+     */
+    Shape get(int slot);
+
+    /**
+     * This method adds a shape to the end of the store.
+     * @param s - the shape to be added
+     */
+    void add(Shape s);
+
+    /**
+     * This method puts a shape in a slot, replacing the shape that was there.
+     * @param slot - the slot to put the shape in
+     * @param s - the shape to put in the slot
+     */
+    void set(int slot, Shape s);
+
+    /**
+     * This method removes the shape in a slot and moves the shapes after it down a slot.
+     * @param slot - the slot to remove
+     */
+    void remove(int slot);
+
+    /**
+     * This method removes all the shapes from the store.
+     */
+    void clear();
+
+    /**
+     * This method gives a list view of the store, which is used for the model's getShapes method.
+     * @return the shapes in the store as a list
+     */
+    List<Shape> asList();
+
+    ////////////// Attribute getter methods //////////////
+
+    /**
+     * Getter method for the ID of the shape in a slot.
+     * @param slot - the shape's slot
+     * @return the shape's ID
+     */
+    long getId(int slot);
+
+    /**
+     * Getter method for the type tag of the shape in a slot.
+     * @param slot - the shape's slot
+     * @return the shape's type tag, as defined in ShapeTypes
+     */
+    byte getType(int slot);
+
+    /**
+     * Getter method for the start x coordinate of the shape in a slot.
+     * @param slot - the shape's slot
+     * @return start x coordinate
+     */
+    int getStartX(int slot);
+
+    /**
+     * Getter method for the start y coordinate of the shape in a slot.
+     * @param slot - the shape's slot
+     * @return start y coordinate
+     */
+    int getStartY(int slot);
+
+    /**
+     * Getter method for the end x coordinate of the shape in a slot.
+     * @param slot - the shape's slot
+     * @return end x coordinate
+     */
+    int getEndX(int slot);
+
+    /**
+     * Getter method for the end y coordinate of the shape in a slot.
+     * @param slot - the shape's slot
+     * @return end y coordinate
+     */
+    int getEndY(int slot);
+
+    /**
+     * Getter method for the stroke width of the shape in a slot.
+     * @param slot - the shape's slot
+     * @return stroke width
+     */
+    int getStrokeWidth(int slot);
+
+    /**
+     * This method checks whether the shape in a slot has a fill color.
+     * @param slot - the shape's slot
+     * @return true if the shape is filled
+     */
+    boolean hasFillColor(int slot);
+
+    /**
+     * Getter method for the fill color of the shape in a slot, packed as an ARGB int.
+     * @param slot - the shape's slot
+     * @return the fill color, only meaningful if hasFillColor is true
+     */
+    int getFillColor(int slot);
+
+    /**
+     * This method checks whether the shape in a slot has a stroke color.
+     * @param slot - the shape's slot
+     * @return true if the shape has a stroke color
+     */
+    boolean hasStrokeColor(int slot);
+
+    /**
+     * Getter method for the stroke color of the shape in a slot, packed as an ARGB int.
+     * @param slot - the shape's slot
+     * @return the stroke color, only meaningful if hasStrokeColor is true
+     */
+    int getStrokeColor(int slot);
+
+    /**
+     * Getter method for the extra attribute of the shape in a slot (number of sides or whether a triangle is equilateral).
+     * @param slot - the shape's slot
+     * @return the extra attribute, as returned by ShapeTypes.extraOf
+     */
+    int getExtra(int slot);
+}
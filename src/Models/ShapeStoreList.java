@@ -0,0 +1,30 @@
+package Models;
+
+import java.util.AbstractList;
+
+/**
+ * This class is a read-only list view of a shape store, used by stores that don't keep shape objects.
+ * Each call to get creates the shape from the store.
+ * @author malaksadek
+ */
+class ShapeStoreList extends AbstractList<Shape> {
+    private final ShapeStore store;
+
+    /**
+     * Constructor for the class.
+     * @param store - the store to view as a list
+     */
+    ShapeStoreList(ShapeStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public Shape get(int index) {
+        return store.get(index);
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+}
@@ -0,0 +1,120 @@
+package Models;
+
+import java.awt.*;
+
+/**
+ * This class maps each shape type to a small type tag so that stores can keep the type in a single byte,
+ * and creates shapes of the right class from their stored attributes.
+ * @author malaksadek
+ */
+public final class ShapeTypes {
+    public static final byte LINE = 0, TRIANGLE = 1, SQUARE = 2, RECTANGLE = 3, ELLIPSE = 4, CIRCLE = 5,
+            HEXAGON = 6, OCTAGON = 7, PARALLELOGRAM = 8, POLYGON = 9;
+
+    private static final String[] NAMES = { "Line", "Triangle", "Square", "Rectangle", "Ellipse", "Circle",
+            "Hexagon", "Octagon", "Parallelogram", "Polygon" };
+
+    private ShapeTypes() {
+    }
+
+    /**
+     * This method finds the type tag for a shape type.
+     * @param shapeType - the type of the shape described as a string
+     * @return the type tag
+     * @throws IllegalArgumentException if the shape type is not known
+     */
+    public static byte tagOf(String shapeType) {
+        for(byte i = 0; i < NAMES.length; i++) {
+            if(NAMES[i].equals(shapeType))
+                return i;
+        }
+        throw new IllegalArgumentException("Unknown shape type: " + shapeType);
+    }
+
+    /**
+     * This method finds the shape type for a type tag.
+     * @param tag - the type tag
+     * @return the type of the shape described as a string
+     */
+    public static String nameOf(byte tag) {
+        return NAMES[tag];
+    }
+
+    /**
+     * This method finds the extra attribute of a shape that only some shape types have:
+     * the number of sides for polygons, and 1 or 0 for whether a triangle is equilateral.
+     * @param s - the shape
+     * @return the extra attribute, or 0 if the shape has none
+     */
+    public static int extraOf(Shape s) {
+        if(s instanceof Polygon)
+            return ((Polygon) s).getNumberOfSides();
+        if(s instanceof Triangle)
+            return ((Triangle) s).getEquilateral() ? 1 : 0;
+        return 0;
+    }
+
+    /**
+     * This method copies a shape, keeping its class, ID and extra attribute, unlike Shape's copy constructor.
+     * @param s - the shape to be copied
+     * @return the copy
+     */
+    public static Shape copy(Shape s) {
+        return create(s.getId(), tagOf(s.getShapeType()), s.getStartX(), s.getStartY(), s.getEndX(), s.getEndY(), s.getStrokeWidth(),
+                s.getFillColor(), s.getStrokeColor(), extraOf(s));
+    }
+
+    /**
+     * This method creates a shape of the class matching the type tag.
+     * @param id - the shape's ID
+     * @param tag - the shape's type tag
+     * @param startX - the starting x coordinate for the shape
+     * @param startY - the starting y coordinate for the shape
+     * @param endX - the ending x coordinate for the shape
+     * @param endY - the ending y coordinate for the shape
+     * @param strokeWidth - the stroke width of the shape
+     * @param fillColor - the fill color of the shape, or null
+     * @param strokeColor - the stroke color of the shape, or null
+     * @param extra - the shape's extra attribute, as returned by extraOf
+     * @return the created shape
+     */
+    static Shape create(long id, byte tag, int startX, int startY, int endX, int endY, int strokeWidth,
+                        Color fillColor, Color strokeColor, int extra) {
+        Shape s;
+        String name = NAMES[tag];
+        switch (tag) {
+            case LINE:
+                s = new Line(startX, startY, endX, endY, strokeWidth, fillColor, strokeColor, name);
+                break;
+            case TRIANGLE:
+                s = new Triangle(startX, startY, endX, endY, strokeWidth, fillColor, strokeColor, extra != 0, name);
+                break;
+            case SQUARE:
+                s = new Square(startX, startY, endX, endY, strokeWidth, fillColor, strokeColor, name);
+                break;
+            case RECTANGLE:
+                s = new Rectangle(startX, startY, endX, endY, strokeWidth, fillColor, strokeColor, name);
+                break;
+            case ELLIPSE:
+                s = new Ellipse(startX, startY, endX, endY, strokeWidth, fillColor, strokeColor, name);
+                break;
+            case CIRCLE:
+                s = new Circle(startX, startY, endX, endY, strokeWidth, fillColor, strokeColor, name);
+                break;
+            case HEXAGON:
+                s = new Hexagon(startX, startY, endX, endY, strokeWidth, fillColor, strokeColor, name);
+                break;
+            case OCTAGON:
+                s = new Octagon(startX, startY, endX, endY, strokeWidth, fillColor, strokeColor, name);
+                break;
+            case PARALLELOGRAM:
+                s = new Parallelogram(startX, startY, endX, endY, strokeWidth, fillColor, strokeColor, name);
+                break;
+            default:
+                s = new Polygon(startX, startY, endX, endY, strokeWidth, fillColor, strokeColor, extra, name);
+                break;
+        }
+        s.setId(id);
+        return s;
+    }
+}
@@ -0,0 +1,132 @@
+package Models;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * This class is the model's index from shape IDs to their slots in the shape store.
+ * Each shape is given a position when it's added, which never changes while it's in the model, and a Fenwick tree over the positions
+ * counts how many shapes are still in the model before each one, which is the shape's slot. Removing a shape only takes its position
+ * out of the tree, so the shapes after it don't have their entries rewritten, and finding or removing a shape by ID takes O(log n).
+ * The positions of removed shapes are reused once there are more of them than shapes in the model, by numbering the shapes again.
+ * @author malaksadek
+ */
+final class SlotIndex {
+    private final HashMap<Long, Integer> positions = new HashMap<>();
+    //The shape at each position, whether it's still in the model, and the tree counting the ones that are, which starts at 1
+    private long[] ids = new long[16];
+    private boolean[] live = new boolean[16];
+    private int[] tree = new int[17];
+    private int next = 0, size = 0;
+
+    /**
+     * This method adds a shape after all the others, in the last slot.
+     * @param id - the shape's ID
+     */
+    void add(long id) {
+        if(next == ids.length)
+            renumber(Math.max(16, size * 2));
+        positions.put(id, next);
+        ids[next] = id;
+        live[next] = true;
+        update(next, 1);
+        next++;
+        size++;
+    }
+
+    /**
+     * This method finds the slot of a shape.
+     * @param id - the shape's ID
+     * @return the shape's slot, or -1 if it's not in the index
+     */
+    int slotOf(long id) {
+        Integer position = positions.get(id);
+        if(position == null)
+            return -1;
+        return count(position) - 1;
+    }
+
+    /**
+     * This method removes a shape, which moves the shapes after it down a slot.
+     * @param id - the shape's ID
+     * @return the slot the shape was in, or -1 if it's not in the index
+     */
+    int remove(long id) {
+        Integer position = positions.remove(id);
+        if(position == null)
+            return -1;
+        int slot = count(position) - 1;
+        live[position] = false;
+        update(position, -1);
+        size--;
+        if(next - size > Math.max(16, size))
+            renumber(ids.length);
+        return slot;
+    }
+
+    /**
+     * Getter method for how many shapes are in the index.
+     * @return the number of shapes
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * This method removes every shape.
+     */
+    void clear() {
+        positions.clear();
+        Arrays.fill(live, false);
+        Arrays.fill(tree, 0);
+        next = 0;
+        size = 0;
+    }
+
+    /**
+     * This method gives the shapes still in the index the positions from 0 in slot order, in arrays of the given capacity,
+     * and builds the tree again in O(n).
+     */
+    private void renumber(int capacity) {
+        long[] oldIds = ids;
+        boolean[] oldLive = live;
+        int oldNext = next;
+        ids = new long[capacity];
+        live = new boolean[capacity];
+        tree = new int[capacity + 1];
+        next = 0;
+        for(int i = 0; i < oldNext; i++) {
+            if(oldLive[i]) {
+                ids[next] = oldIds[i];
+                live[next] = true;
+                positions.put(oldIds[i], next);
+                next++;
+            }
+        }
+        for(int i = 1; i <= next; i++)
+            tree[i] = 1;
+        for(int i = 1; i <= capacity; i++) {
+            int parent = i + (i & -i);
+            if(parent <= capacity)
+                tree[parent] += tree[i];
+        }
+    }
+
+    /**
+     * This method adds to the count at a position.
+     */
+    private void update(int position, int delta) {
+        for(int i = position + 1; i < tree.length; i += i & -i)
+            tree[i] += delta;
+    }
+
+    /**
+     * This method counts the shapes still in the index at or before a position.
+     */
+    private int count(int position) {
+        int total = 0;
+        for(int i = position + 1; i > 0; i -= i & -i)
+            total += tree[i];
+        return total;
+    }
+}
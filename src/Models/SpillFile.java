@@ -0,0 +1,93 @@
+package Models;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * This class is the temporary file a history moves its oldest commands to when it goes over its memory budget.
+ * Pages of commands are only ever appended to the end of the file, and since the history always takes back the page it moved out most recently,
+ * reading a page back also cuts it off the end, so the file is never bigger than the pages still in it.
+ * The file is made the first time a page is written and deleted when it's closed or when the program exits.
+ * @author malaksadek
+ */
+final class SpillFile {
+    private File file;
+    private RandomAccessFile data;
+
+    /**
+     * This method adds a page to the end of the file.
+     * @param page - the page's bytes
+     * @return where in the file the page starts
+     * @throws IOException if the file can't be made or written to
+     */
+    long append(byte[] page) throws IOException {
+        if(data == null) {
+            file = File.createTempFile("javapaint-history", ".spill");
+            file.deleteOnExit();
+            data = new RandomAccessFile(file, "rw");
+        }
+        long offset = data.length();
+        data.seek(offset);
+        data.write(page);
+        return offset;
+    }
+
+    /**
+     * This method reads a page without removing it from the file.
+     * @param offset - where in the file the page starts
+     * @param length - the size of the page in bytes
+     * @return the page's bytes
+     * @throws IOException if the file can't be read
+     */
+    byte[] read(long offset, int length) throws IOException {
+        if(data == null)
+            throw new IOException("The history's spill file has been closed");
+        byte[] page = new byte[length];
+        data.seek(offset);
+        data.readFully(page);
+        return page;
+    }
+
+    /**
+     * This method reads the last page back and removes it from the file.
+     * @param offset - where in the file the page starts
+     * @return the page's bytes
+     * @throws IOException if the file can't be read
+     */
+    byte[] takeLast(long offset) throws IOException {
+        byte[] page = new byte[(int) (data.length() - offset)];
+        data.seek(offset);
+        data.readFully(page);
+        data.setLength(offset);
+        return page;
+    }
+
+    /**
+     * Getter method for how big the file is.
+     * @return the size of the file in bytes
+     */
+    long length() {
+        try {
+            return data == null ? 0 : data.length();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * This method deletes the file, a new one is made if another page is appended.
+     */
+    void close() {
+        if(data == null)
+            return;
+        try {
+            data.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        file.delete();
+        data = null;
+        file = null;
+    }
+}
@@ -43,7 +43,7 @@ public class DrawTests {
 
         if(!l.equalColor(model.getShapes().get(0)) || !l.equalPosition(model.getShapes().get(0)) || !l.equalSize(model.getShapes().get(0)) || !l.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !l.equalColor(((Action)model.getActions().peek()).getS()) || !l.equalPosition(((Action)model.getActions().peek()).getS()) || !l.equalSize(((Action)model.getActions().peek()).getS()) || !l.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !l.equalColor(model.getHistory().peekUndo().getShape()) || !l.equalPosition(model.getHistory().peekUndo().getShape()) || !l.equalSize(model.getHistory().peekUndo().getShape()) || !l.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -62,7 +62,7 @@ public class DrawTests {
 
         if(!t.equalColor(model.getShapes().get(0)) || !t.equalPosition(model.getShapes().get(0)) || !t.equalSize(model.getShapes().get(0)) || !t.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !t.equalColor(((Action)model.getActions().peek()).getS()) || !t.equalPosition(((Action)model.getActions().peek()).getS()) || !t.equalSize(((Action)model.getActions().peek()).getS()) || !t.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !t.equalColor(model.getHistory().peekUndo().getShape()) || !t.equalPosition(model.getHistory().peekUndo().getShape()) || !t.equalSize(model.getHistory().peekUndo().getShape()) || !t.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -81,7 +81,7 @@ public class DrawTests {
 
         if(!t.equalColor(model.getShapes().get(0)) || !t.equalPosition(model.getShapes().get(0)) || !t.equalSize(model.getShapes().get(0)) || !t.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !t.equalColor(((Action)model.getActions().peek()).getS()) || !t.equalPosition(((Action)model.getActions().peek()).getS()) || !t.equalSize(((Action)model.getActions().peek()).getS()) || !t.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !t.equalColor(model.getHistory().peekUndo().getShape()) || !t.equalPosition(model.getHistory().peekUndo().getShape()) || !t.equalSize(model.getHistory().peekUndo().getShape()) || !t.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -100,7 +100,7 @@ public class DrawTests {
 
         if(!t.equalColor(model.getShapes().get(0)) || !t.equalPosition(model.getShapes().get(0)) || !t.equalSize(model.getShapes().get(0)) || !t.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !t.equalColor(((Action)model.getActions().peek()).getS()) || !t.equalPosition(((Action)model.getActions().peek()).getS()) || !t.equalSize(((Action)model.getActions().peek()).getS()) || !t.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !t.equalColor(model.getHistory().peekUndo().getShape()) || !t.equalPosition(model.getHistory().peekUndo().getShape()) || !t.equalSize(model.getHistory().peekUndo().getShape()) || !t.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -119,7 +119,7 @@ public class DrawTests {
 
         if(!t.equalColor(model.getShapes().get(0)) || !t.equalPosition(model.getShapes().get(0)) || !t.equalSize(model.getShapes().get(0)) || !t.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !t.equalColor(((Action)model.getActions().peek()).getS()) || !t.equalPosition(((Action)model.getActions().peek()).getS()) || !t.equalSize(((Action)model.getActions().peek()).getS()) || !t.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !t.equalColor(model.getHistory().peekUndo().getShape()) || !t.equalPosition(model.getHistory().peekUndo().getShape()) || !t.equalSize(model.getHistory().peekUndo().getShape()) || !t.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -138,7 +138,7 @@ public class DrawTests {
 
         if(!r.equalColor(model.getShapes().get(0)) || !r.equalPosition(model.getShapes().get(0)) || !r.equalSize(model.getShapes().get(0)) || !r.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !r.equalColor(((Action)model.getActions().peek()).getS()) || !r.equalPosition(((Action)model.getActions().peek()).getS()) || !r.equalSize(((Action)model.getActions().peek()).getS()) || !r.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !r.equalColor(model.getHistory().peekUndo().getShape()) || !r.equalPosition(model.getHistory().peekUndo().getShape()) || !r.equalSize(model.getHistory().peekUndo().getShape()) || !r.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -157,7 +157,7 @@ public class DrawTests {
 
         if(!r.equalColor(model.getShapes().get(0)) || !r.equalPosition(model.getShapes().get(0)) || !r.equalSize(model.getShapes().get(0)) || !r.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !r.equalColor(((Action)model.getActions().peek()).getS()) || !r.equalPosition(((Action)model.getActions().peek()).getS()) || !r.equalSize(((Action)model.getActions().peek()).getS()) || !r.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !r.equalColor(model.getHistory().peekUndo().getShape()) || !r.equalPosition(model.getHistory().peekUndo().getShape()) || !r.equalSize(model.getHistory().peekUndo().getShape()) || !r.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -176,7 +176,7 @@ public class DrawTests {
 
         if(!s.equalColor(model.getShapes().get(0)) || !s.equalPosition(model.getShapes().get(0)) || !s.equalSize(model.getShapes().get(0)) || !s.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !s.equalColor(((Action)model.getActions().peek()).getS()) || !s.equalPosition(((Action)model.getActions().peek()).getS()) || !s.equalSize(((Action)model.getActions().peek()).getS()) || !s.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !s.equalColor(model.getHistory().peekUndo().getShape()) || !s.equalPosition(model.getHistory().peekUndo().getShape()) || !s.equalSize(model.getHistory().peekUndo().getShape()) || !s.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -195,7 +195,7 @@ public class DrawTests {
 
         if(!s.equalColor(model.getShapes().get(0)) || !s.equalPosition(model.getShapes().get(0)) || !s.equalSize(model.getShapes().get(0)) || !s.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !s.equalColor(((Action)model.getActions().peek()).getS()) || !s.equalPosition(((Action)model.getActions().peek()).getS()) || !s.equalSize(((Action)model.getActions().peek()).getS()) || !s.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !s.equalColor(model.getHistory().peekUndo().getShape()) || !s.equalPosition(model.getHistory().peekUndo().getShape()) || !s.equalSize(model.getHistory().peekUndo().getShape()) || !s.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -214,7 +214,7 @@ public class DrawTests {
 
         if(!e.equalColor(model.getShapes().get(0)) || !e.equalPosition(model.getShapes().get(0)) || !e.equalSize(model.getShapes().get(0)) || !e.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !e.equalColor(((Action)model.getActions().peek()).getS()) || !e.equalPosition(((Action)model.getActions().peek()).getS()) || !e.equalSize(((Action)model.getActions().peek()).getS()) || !e.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !e.equalColor(model.getHistory().peekUndo().getShape()) || !e.equalPosition(model.getHistory().peekUndo().getShape()) || !e.equalSize(model.getHistory().peekUndo().getShape()) || !e.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -233,7 +233,7 @@ public class DrawTests {
 
         if(!e.equalColor(model.getShapes().get(0)) || !e.equalPosition(model.getShapes().get(0)) || !e.equalSize(model.getShapes().get(0)) || !e.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !e.equalColor(((Action)model.getActions().peek()).getS()) || !e.equalPosition(((Action)model.getActions().peek()).getS()) || !e.equalSize(((Action)model.getActions().peek()).getS()) || !e.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !e.equalColor(model.getHistory().peekUndo().getShape()) || !e.equalPosition(model.getHistory().peekUndo().getShape()) || !e.equalSize(model.getHistory().peekUndo().getShape()) || !e.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -252,7 +252,7 @@ public class DrawTests {
 
         if(!c.equalColor(model.getShapes().get(0)) || !c.equalPosition(model.getShapes().get(0)) || !c.equalSize(model.getShapes().get(0)) || !c.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !c.equalColor(((Action)model.getActions().peek()).getS()) || !c.equalPosition(((Action)model.getActions().peek()).getS()) || !c.equalSize(((Action)model.getActions().peek()).getS()) || !c.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !c.equalColor(model.getHistory().peekUndo().getShape()) || !c.equalPosition(model.getHistory().peekUndo().getShape()) || !c.equalSize(model.getHistory().peekUndo().getShape()) || !c.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -271,7 +271,7 @@ public class DrawTests {
 
         if(!c.equalColor(model.getShapes().get(0)) || !c.equalPosition(model.getShapes().get(0)) || !c.equalSize(model.getShapes().get(0)) || !c.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !c.equalColor(((Action)model.getActions().peek()).getS()) || !c.equalPosition(((Action)model.getActions().peek()).getS()) || !c.equalSize(((Action)model.getActions().peek()).getS()) || !c.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !c.equalColor(model.getHistory().peekUndo().getShape()) || !c.equalPosition(model.getHistory().peekUndo().getShape()) || !c.equalSize(model.getHistory().peekUndo().getShape()) || !c.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -290,7 +290,7 @@ public class DrawTests {
 
         if(!h.equalColor(model.getShapes().get(0)) || !h.equalPosition(model.getShapes().get(0)) || !h.equalSize(model.getShapes().get(0)) || !h.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !h.equalColor(((Action)model.getActions().peek()).getS()) || !h.equalPosition(((Action)model.getActions().peek()).getS()) || !h.equalSize(((Action)model.getActions().peek()).getS()) || !h.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !h.equalColor(model.getHistory().peekUndo().getShape()) || !h.equalPosition(model.getHistory().peekUndo().getShape()) || !h.equalSize(model.getHistory().peekUndo().getShape()) || !h.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -309,7 +309,7 @@ public class DrawTests {
 
         if(!h.equalColor(model.getShapes().get(0)) || !h.equalPosition(model.getShapes().get(0)) || !h.equalSize(model.getShapes().get(0)) || !h.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !h.equalColor(((Action)model.getActions().peek()).getS()) || !h.equalPosition(((Action)model.getActions().peek()).getS()) || !h.equalSize(((Action)model.getActions().peek()).getS()) || !h.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !h.equalColor(model.getHistory().peekUndo().getShape()) || !h.equalPosition(model.getHistory().peekUndo().getShape()) || !h.equalSize(model.getHistory().peekUndo().getShape()) || !h.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -327,7 +327,7 @@ public class DrawTests {
 
         if(!o.equalColor(model.getShapes().get(0)) || !o.equalPosition(model.getShapes().get(0)) || !o.equalSize(model.getShapes().get(0)) || !o.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !o.equalColor(((Action)model.getActions().peek()).getS()) || !o.equalPosition(((Action)model.getActions().peek()).getS()) || !o.equalSize(((Action)model.getActions().peek()).getS()) || !o.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !o.equalColor(model.getHistory().peekUndo().getShape()) || !o.equalPosition(model.getHistory().peekUndo().getShape()) || !o.equalSize(model.getHistory().peekUndo().getShape()) || !o.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -345,7 +345,7 @@ public class DrawTests {
 
         if(!o.equalColor(model.getShapes().get(0)) || !o.equalPosition(model.getShapes().get(0)) || !o.equalSize(model.getShapes().get(0)) || !o.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !o.equalColor(((Action)model.getActions().peek()).getS()) || !o.equalPosition(((Action)model.getActions().peek()).getS()) || !o.equalSize(((Action)model.getActions().peek()).getS()) || !o.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !o.equalColor(model.getHistory().peekUndo().getShape()) || !o.equalPosition(model.getHistory().peekUndo().getShape()) || !o.equalSize(model.getHistory().peekUndo().getShape()) || !o.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -363,7 +363,7 @@ public class DrawTests {
 
         if(!p.equalColor(model.getShapes().get(0)) || !p.equalPosition(model.getShapes().get(0)) || !p.equalSize(model.getShapes().get(0)) || !p.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !p.equalColor(((Action)model.getActions().peek()).getS()) || !p.equalPosition(((Action)model.getActions().peek()).getS()) || !p.equalSize(((Action)model.getActions().peek()).getS()) || !p.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !p.equalColor(model.getHistory().peekUndo().getShape()) || !p.equalPosition(model.getHistory().peekUndo().getShape()) || !p.equalSize(model.getHistory().peekUndo().getShape()) || !p.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -381,7 +381,7 @@ public class DrawTests {
 
         if(!p.equalColor(model.getShapes().get(0)) || !p.equalPosition(model.getShapes().get(0)) || !p.equalSize(model.getShapes().get(0)) || !p.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !p.equalColor(((Action)model.getActions().peek()).getS()) || !p.equalPosition(((Action)model.getActions().peek()).getS()) || !p.equalSize(((Action)model.getActions().peek()).getS()) || !p.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !p.equalColor(model.getHistory().peekUndo().getShape()) || !p.equalPosition(model.getHistory().peekUndo().getShape()) || !p.equalSize(model.getHistory().peekUndo().getShape()) || !p.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -399,7 +399,7 @@ public class DrawTests {
 
         if(!p.equalColor(model.getShapes().get(0)) || !p.equalPosition(model.getShapes().get(0)) || !p.equalSize(model.getShapes().get(0)) || !p.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !p.equalColor(((Action)model.getActions().peek()).getS()) || !p.equalPosition(((Action)model.getActions().peek()).getS()) || !p.equalSize(((Action)model.getActions().peek()).getS()) || !p.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !p.equalColor(model.getHistory().peekUndo().getShape()) || !p.equalPosition(model.getHistory().peekUndo().getShape()) || !p.equalSize(model.getHistory().peekUndo().getShape()) || !p.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -417,7 +417,7 @@ public class DrawTests {
 
         if(!p.equalColor(model.getShapes().get(0)) || !p.equalPosition(model.getShapes().get(0)) || !p.equalSize(model.getShapes().get(0)) || !p.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !p.equalColor(((Action)model.getActions().peek()).getS()) || !p.equalPosition(((Action)model.getActions().peek()).getS()) || !p.equalSize(((Action)model.getActions().peek()).getS()) || !p.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !p.equalColor(model.getHistory().peekUndo().getShape()) || !p.equalPosition(model.getHistory().peekUndo().getShape()) || !p.equalSize(model.getHistory().peekUndo().getShape()) || !p.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -434,7 +434,7 @@ public class DrawTests {
 
         if(!r.equalColor(model.getShapes().get(0)) || !r.equalPosition(model.getShapes().get(0)) || !r.equalSize(model.getShapes().get(0)) || !r.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !r.equalColor(((Action)model.getActions().peek()).getS()) || !r.equalPosition(((Action)model.getActions().peek()).getS()) || !r.equalSize(((Action)model.getActions().peek()).getS()) || !r.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !r.equalColor(model.getHistory().peekUndo().getShape()) || !r.equalPosition(model.getHistory().peekUndo().getShape()) || !r.equalSize(model.getHistory().peekUndo().getShape()) || !r.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -451,7 +451,7 @@ public class DrawTests {
 
         if(!r.equalColor(model.getShapes().get(0)) || !r.equalPosition(model.getShapes().get(0)) || !r.equalSize(model.getShapes().get(0)) || !r.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !r.equalColor(((Action)model.getActions().peek()).getS()) || !r.equalPosition(((Action)model.getActions().peek()).getS()) || !r.equalSize(((Action)model.getActions().peek()).getS()) || !r.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !r.equalColor(model.getHistory().peekUndo().getShape()) || !r.equalPosition(model.getHistory().peekUndo().getShape()) || !r.equalSize(model.getHistory().peekUndo().getShape()) || !r.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 }
@@ -57,6 +57,51 @@ public class EditTests {
             fail("Deselect shape is wrong");
     }
 
+    /**
+     * This test creates shapes and checks that each gets its own ID, which stays the same after the shape is edited.
+     */
+    @Test
+    public void shapeIds() {
+        model.clear();
+        controller.rectangleTool(10, 50, 10, 50, 5, true);
+        controller.rectangleTool(10, 50, 10, 50, 5, true);
+
+        assertNotEquals(model.getShapes().get(0).getId(), model.getShapes().get(1).getId());
+
+        Shape selectedShape = controller.selectShape(20, 20);
+        long id = selectedShape.getId();
+        int slot = model.indexOf(id);
+        controller.updateModel(new Rectangle(20, 20, 60, 60, 5, Color.BLACK, null, "Rectangle"), new Shape(selectedShape), 1);
+
+        assertEquals(model.getShapes().get(slot).getId(), id);
+        assertEquals(model.getShape(id).getStartX(), 20);
+        assertEquals(model.indexOf(id), slot);
+    }
+
+    /**
+     * This test moves a shape and checks that the model reports the area covering both its old and new position as changed.
+     */
+    @Test
+    public void moveReportsDamage() {
+        model.clear();
+        controller.rectangleTool(10, 50, 10, 50, 5, true);
+        controller.rectangleTool(300, 350, 300, 350, 5, true);
+
+        final java.awt.Rectangle[] damage = new java.awt.Rectangle[1];
+        model.addObserver((o, arg) -> damage[0] = (java.awt.Rectangle) arg);
+
+        Shape selectedShape = controller.selectShape(20, 20);
+        controller.updateModel(new Rectangle(110, 110, 150, 150, 5, Color.BLACK, null, "Rectangle"), selectedShape, 1);
+
+        assertNotNull(damage[0]);
+        assertTrue(damage[0].contains(10, 10) && damage[0].contains(50, 50));
+        assertTrue(damage[0].contains(110, 110) && damage[0].contains(150, 150));
+        assertFalse(damage[0].contains(300, 300));
+
+        model.clear();
+        assertNull(damage[0]);
+    }
+
     /**
      * This test creates a shape and then changes its fill color and checks that the change successfully took place and was recorded.
      */
@@ -71,7 +116,7 @@ public class EditTests {
 
         if (model.getShapes().get(0).getFillColor() != Color.BLACK)
             fail("Change shape color is wrong");
-        if (((Action) model.getActions().peek()).getS().getFillColor() != Color.BLACK || ((Action) model.getActions().peek()).getType() != 'e')
+        if (model.getHistory().peekUndo().getShape().getFillColor() != Color.BLACK || model.getHistory().peekUndo().getType() != 'e')
             fail("Storing change shape color in history is wrong");
     }
 
@@ -89,7 +134,7 @@ public class EditTests {
 
         if (model.getShapes().get(0).getStrokeColor() != Color.BLACK)
             fail("Change shape color is wrong");
-        if (((Action) model.getActions().peek()).getS().getStrokeColor() != Color.BLACK || ((Action) model.getActions().peek()).getType() != 'e')
+        if (model.getHistory().peekUndo().getShape().getStrokeColor() != Color.BLACK || model.getHistory().peekUndo().getType() != 'e')
             fail("Storing change shape color in history is wrong");
     }
 
@@ -107,7 +152,7 @@ public class EditTests {
 
         if (model.getShapes().get(0).getStartY() != 20 || model.getShapes().get(0).getStartX() != 20 || model.getShapes().get(0).getEndX() != 60 || model.getShapes().get(0).getEndY() != 60)
             fail("Change shape position is wrong");
-        if (((Action) model.getActions().peek()).getS().getStartY() != 20 || ((Action) model.getActions().peek()).getS().getStartX() != 20 || ((Action) model.getActions().peek()).getS().getEndX() != 60 || ((Action) model.getActions().peek()).getS().getEndY() != 60 || ((Action) model.getActions().peek()).getType() != 'e')
+        if (model.getHistory().peekUndo().getShape().getStartY() != 20 || model.getHistory().peekUndo().getShape().getStartX() != 20 || model.getHistory().peekUndo().getShape().getEndX() != 60 || model.getHistory().peekUndo().getShape().getEndY() != 60 || model.getHistory().peekUndo().getType() != 'e')
             fail("Storing change shape position in history is wrong");
     }
 
@@ -125,7 +170,7 @@ public class EditTests {
 
         if (model.getShapes().get(0).getStartY() != 10 || model.getShapes().get(0).getStartX() != 10 || model.getShapes().get(0).getEndX() != 60 || model.getShapes().get(0).getEndY() != 60)
             fail("Change shape resize is wrong");
-        if (((Action) model.getActions().peek()).getS().getStartY() != 10 || ((Action) model.getActions().peek()).getS().getStartX() != 10 || ((Action) model.getActions().peek()).getS().getEndX() != 60 || ((Action) model.getActions().peek()).getS().getEndY() != 60 || ((Action) model.getActions().peek()).getType() != 'e')
+        if (model.getHistory().peekUndo().getShape().getStartY() != 10 || model.getHistory().peekUndo().getShape().getStartX() != 10 || model.getHistory().peekUndo().getShape().getEndX() != 60 || model.getHistory().peekUndo().getShape().getEndY() != 60 || model.getHistory().peekUndo().getType() != 'e')
             fail("Storing change shape resize in history is wrong");
     }
 
@@ -143,7 +188,7 @@ public class EditTests {
 
         if (model.getShapes().get(0).getFillColor() != null || model.getShapes().get(0).getStrokeColor() != Color.RED)
             fail("Change shape fill is wrong");
-        if (((Action) model.getActions().peek()).getS().getFillColor() != null || ((Action) model.getActions().peek()).getS().getStrokeColor() != Color.RED || ((Action) model.getActions().peek()).getType() != 'e')
+        if (model.getHistory().peekUndo().getShape().getFillColor() != null || model.getHistory().peekUndo().getShape().getStrokeColor() != Color.RED || model.getHistory().peekUndo().getType() != 'e')
             fail("Storing change shape fill in history is wrong");
     }
 
@@ -161,7 +206,7 @@ public class EditTests {
 
         if (model.getShapes().get(0).getStrokeWidth() != 10)
             fail("Change shape stroke width is wrong");
-        if (((Action) model.getActions().peek()).getS().getStrokeWidth() != 10 || ((Action) model.getActions().peek()).getType() != 'e')
+        if (model.getHistory().peekUndo().getShape().getStrokeWidth() != 10 || model.getHistory().peekUndo().getType() != 'e')
             fail("Storing change shape stroke width in history is wrong");
     }
 
@@ -183,7 +228,7 @@ public class EditTests {
                 fail("Delete shape is wrong");
         }
 
-        if ((!((Action) model.getActions().peek()).getS().equalColor(selectedShape) || !((Action) model.getActions().peek()).getS().equalStroke(selectedShape) || !((Action) model.getActions().peek()).getS().equalPosition(selectedShape) || !((Action) model.getActions().peek()).getS().equalSize(selectedShape) || ((Action) model.getActions().peek()).getType() != 'd'))
+        if ((!model.getHistory().peekUndo().getShape().equalColor(selectedShape) || !model.getHistory().peekUndo().getShape().equalStroke(selectedShape) || !model.getHistory().peekUndo().getShape().equalPosition(selectedShape) || !model.getHistory().peekUndo().getShape().equalSize(selectedShape) || model.getHistory().peekUndo().getType() != 'd'))
                 fail("Storing delete shape in history is wrong");
     }
 }
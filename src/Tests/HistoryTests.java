@@ -1,7 +1,6 @@
 package Tests;
 
 import Controller.Controller;
-import Models.Action;
 import Models.Model;
 import Models.Rectangle;
 import Models.Shape;
@@ -41,7 +40,7 @@ public class HistoryTests {
         controller.undo();
 
         assertEquals(model.getShapes().size(), 0);
-        assertEquals(model.getActions().size(), 0);
+        assertEquals(model.getHistory().size(), 0);
 
         Rectangle r = new Rectangle(10, 10, 50, 50, 5, null, controller.getSelectedColor(), "Rectangle");
 
@@ -58,20 +57,40 @@ public class HistoryTests {
         controller.rectangleTool(10, 50, 10, 50, 5, true);
 
         Shape selectedShape = controller.selectShape(20, 20);
-        controller.updateModel(new Rectangle(10, 10, 50, 50, 5, Color.BLACK, null, "Rectangle"), selectedShape, 1);
+        controller.updateModel(new Rectangle(10, 10, 50, 50, 5, Color.BLUE, null, "Rectangle"), selectedShape, 1);
 
         controller.undo();
 
         assertEquals(model.getShapes().size(), 1);
-        assertEquals(model.getActions().size(), 1);
+        assertEquals(model.getHistory().size(), 1);
 
-        Rectangle r = new Rectangle(10, 10, 50, 50, 5, Color.BLACK, null, "Rectangle");
+        Rectangle r = new Rectangle(10, 10, 50, 50, 5, Color.BLUE, null, "Rectangle");
 
         if(!r.equalColor(model.getLastChange()) || !r.equalPosition(model.getLastChange()) || !r.equalSize(model.getLastChange()) || !r.equalStroke(model.getLastChange()))
             fail("Last change in model is wrong!");
 
     }
 
+    /**
+     * This test edits a shape without changing any of its fields and checks that nothing was added to the history, so undo goes straight to the creation.
+     */
+    @Test
+    public void unchangedEditNotRecorded() {
+        model.clear();
+        controller.rectangleTool(10, 50, 10, 50, 5, true);
+
+        Shape selectedShape = controller.selectShape(20, 20);
+        controller.updateModel(new Rectangle(10, 10, 50, 50, 5, Color.BLACK, null, "Rectangle"), selectedShape, 1);
+
+        assertEquals(model.getShapes().size(), 1);
+        assertEquals(model.getHistory().size(), 1);
+        assertEquals(model.getHistory().peekUndo().getType(), 'c');
+
+        controller.undo();
+
+        assertEquals(model.getShapes().size(), 0);
+    }
+
     /**
      * This test creates a shape and then deletes it and then un-does it and checks whether it was successfully recreated.
      */
@@ -87,7 +106,7 @@ public class HistoryTests {
         controller.undo();
 
         assertEquals(model.getShapes().size(), 1);
-        assertEquals(model.getActions().size(), 1);
+        assertEquals(model.getHistory().size(), 1);
 
         Rectangle r = new Rectangle(10, 10, 50, 50, 5, Color.BLACK, null, "Rectangle");
 
@@ -106,7 +125,7 @@ public class HistoryTests {
 
         Shape selectedShape = controller.selectShape(20, 20);
 
-        controller.updateModel(new Rectangle(10, 10, 50, 50, 5, Color.BLACK, null, "Rectangle"), selectedShape, 1);
+        controller.updateModel(new Rectangle(10, 10, 50, 50, 5, Color.BLUE, null, "Rectangle"), selectedShape, 1);
 
         selectedShape = controller.selectShape(20, 20);
 
@@ -117,33 +136,62 @@ public class HistoryTests {
         controller.undo();
 
         assertEquals(model.getShapes().size(), 1);
-        assertEquals(model.getActions().size(), 3);
+        //The create and the edit, which is one command
+        assertEquals(model.getHistory().size(), 2);
 
         Rectangle r = new Rectangle(10, 10, 50, 50, 5, Color.BLACK, null, "Rectangle");
+        Rectangle edited = new Rectangle(10, 10, 50, 50, 5, Color.BLUE, null, "Rectangle");
 
-        if(!r.equalColor(model.getLastChange()) || !r.equalPosition(model.getLastChange()) || !r.equalSize(model.getLastChange()) || !r.equalStroke(model.getLastChange()))
+        if(!edited.equalColor(model.getLastChange()) || !edited.equalPosition(model.getLastChange()) || !edited.equalSize(model.getLastChange()) || !edited.equalStroke(model.getLastChange()))
             fail("Last change in model is wrong!");
 
         //Undo edit
         controller.undo();
 
         assertEquals(model.getShapes().size(), 1);
-        assertEquals(model.getActions().size(), 1);
+        assertEquals(model.getHistory().size(), 1);
 
-        if(!r.equalColor(model.getLastChange()) || !r.equalPosition(model.getLastChange()) || !r.equalSize(model.getLastChange()) || !r.equalStroke(model.getLastChange()))
+        if(!edited.equalColor(model.getLastChange()) || !edited.equalPosition(model.getLastChange()) || !edited.equalSize(model.getLastChange()) || !edited.equalStroke(model.getLastChange()))
             fail("Last change in model is wrong!");
 
         //Undo create
         controller.undo();
 
         assertEquals(model.getShapes().size(), 0);
-        assertEquals(model.getActions().size(), 0);
+        assertEquals(model.getHistory().size(), 0);
 
         if(!r.equalColor(model.getLastChange()) || !r.equalPosition(model.getLastChange()) || !r.equalSize(model.getLastChange()) || !r.equalStroke(model.getLastChange()))
             fail("Last change in model is wrong!");
 
     }
 
+    /**
+     * This test creates two identical shapes, moves the second one and then un-does the move and checks that only the second one was moved back.
+     */
+    @Test
+    public void undoEditIdenticalShapes() {
+        model.clear();
+        controller.rectangleTool(10, 50, 10, 50, 5, true);
+        controller.rectangleTool(10, 50, 10, 50, 5, true);
+
+        Shape first = model.getShapes().get(0);
+        Shape second = model.getShapes().get(1);
+        controller.updateModel(new Rectangle(20, 20, 60, 60, 5, Color.BLACK, null, "Rectangle"), second, 1);
+
+        assertSame(model.getShapes().get(0), first);
+        assertEquals(model.getShapes().get(1).getId(), second.getId());
+
+        controller.undo();
+
+        assertEquals(model.getShapes().size(), 2);
+        assertSame(model.getShapes().get(0), first);
+        //The edit only kept the fields it changed, so the shape is put back as a new object in the same state
+        Shape restored = model.getShapes().get(1);
+        assertEquals(restored.getId(), second.getId());
+        assertTrue(restored.equalColor(second) && restored.equalPosition(second) && restored.equalSize(second) && restored.equalStroke(second));
+        assertSame(model.getShape(second.getId()), restored);
+    }
+
     /**
      * This test creates a shape and then un-does it and then re-does it and checks whether it was successfully recreated.
      */
@@ -162,7 +210,7 @@ public class HistoryTests {
 
         if(!r.equalColor(model.getShapes().get(0)) || !r.equalPosition(model.getShapes().get(0)) || !r.equalSize(model.getShapes().get(0)) || !r.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='c' || !r.equalColor(((Action)model.getActions().peek()).getS()) || !r.equalPosition(((Action)model.getActions().peek()).getS()) || !r.equalSize(((Action)model.getActions().peek()).getS()) || !r.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !r.equalColor(model.getHistory().peekUndo().getShape()) || !r.equalPosition(model.getHistory().peekUndo().getShape()) || !r.equalSize(model.getHistory().peekUndo().getShape()) || !r.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -175,20 +223,22 @@ public class HistoryTests {
         controller.rectangleTool(10, 50, 10, 50, 5, true);
 
         Shape selectedShape = controller.selectShape(20, 20);
-        controller.updateModel(new Rectangle(10, 10, 50, 50, 5, Color.BLACK, null, "Rectangle"), selectedShape, 1);
+        controller.updateModel(new Rectangle(10, 10, 50, 50, 5, Color.BLUE, null, "Rectangle"), selectedShape, 1);
 
         controller.undo();
         controller.redo();
 
         assertEquals(model.getShapes().size(), 1);
-        assertEquals(model.getActions().size(), 3);
+        //The create and the edit, which is one command
+        assertEquals(model.getHistory().size(), 2);
         assertNull(model.getLastChange());
 
         Rectangle r = new Rectangle(10, 10, 50, 50, 5, Color.BLACK, null, "Rectangle");
+        Rectangle edited = new Rectangle(10, 10, 50, 50, 5, Color.BLUE, null, "Rectangle");
 
-        if(!r.equalColor(model.getShapes().get(0)) || !r.equalPosition(model.getShapes().get(0)) || !r.equalSize(model.getShapes().get(0)) || !r.equalStroke(model.getShapes().get(0)))
+        if(!edited.equalColor(model.getShapes().get(0)) || !edited.equalPosition(model.getShapes().get(0)) || !edited.equalSize(model.getShapes().get(0)) || !edited.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='e' || !r.equalColor(((Action)model.getActions().peek()).getS()) || !r.equalPosition(((Action)model.getActions().peek()).getS()) || !r.equalSize(((Action)model.getActions().peek()).getS()) || !r.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='e' || !edited.equalColor(model.getHistory().peekUndo().getShape()) || !edited.equalPosition(model.getHistory().peekUndo().getShape()) || !edited.equalSize(model.getHistory().peekUndo().getShape()) || !edited.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -208,12 +258,12 @@ public class HistoryTests {
         controller.redo();
 
         assertEquals(model.getShapes().size(), 0);
-        assertEquals(model.getActions().size(), 2);
+        assertEquals(model.getHistory().size(), 2);
         assertNull(model.getLastChange());
 
         Rectangle r = new Rectangle(10, 10, 50, 50, 5, Color.BLACK, null, "Rectangle");
 
-        if(((Action)model.getActions().peek()).getType() !='d' || !r.equalColor(((Action)model.getActions().peek()).getS()) || !r.equalPosition(((Action)model.getActions().peek()).getS()) || !r.equalSize(((Action)model.getActions().peek()).getS()) || !r.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='d' || !r.equalColor(model.getHistory().peekUndo().getShape()) || !r.equalPosition(model.getHistory().peekUndo().getShape()) || !r.equalSize(model.getHistory().peekUndo().getShape()) || !r.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
@@ -226,7 +276,7 @@ public class HistoryTests {
         controller.rectangleTool(10, 50, 10, 50, 5, true);
 
         Shape selectedShape = controller.selectShape(20, 20);
-        controller.updateModel(new Rectangle(10, 10, 50, 50, 5, Color.BLACK, null, "Rectangle"), selectedShape, 1);
+        controller.updateModel(new Rectangle(10, 10, 50, 50, 5, Color.BLUE, null, "Rectangle"), selectedShape, 1);
 
         selectedShape = controller.selectShape(20, 20);
         controller.delete(selectedShape);
@@ -240,22 +290,24 @@ public class HistoryTests {
         controller.redo();
 
         assertEquals(model.getShapes().size(), 1);
-        assertEquals(model.getActions().size(), 1);
+        assertEquals(model.getHistory().size(), 1);
 
         Rectangle r = new Rectangle(10, 10, 50, 50, 5, Color.BLACK, null, "Rectangle");
+        Rectangle edited = new Rectangle(10, 10, 50, 50, 5, Color.BLUE, null, "Rectangle");
 
-        if(((Action)model.getActions().peek()).getType() !='c' || !r.equalColor(((Action)model.getActions().peek()).getS()) || !r.equalPosition(((Action)model.getActions().peek()).getS()) || !r.equalSize(((Action)model.getActions().peek()).getS()) || !r.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='c' || !r.equalColor(model.getHistory().peekUndo().getShape()) || !r.equalPosition(model.getHistory().peekUndo().getShape()) || !r.equalSize(model.getHistory().peekUndo().getShape()) || !r.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
 
         //Redo edit
         controller.redo();
 
         assertEquals(model.getShapes().size(), 1);
-        assertEquals(model.getActions().size(), 3);
+        //The create and the edit, which is one command
+        assertEquals(model.getHistory().size(), 2);
 
-        if(!r.equalColor(model.getShapes().get(0)) || !r.equalPosition(model.getShapes().get(0)) || !r.equalSize(model.getShapes().get(0)) || !r.equalStroke(model.getShapes().get(0)))
+        if(!edited.equalColor(model.getShapes().get(0)) || !edited.equalPosition(model.getShapes().get(0)) || !edited.equalSize(model.getShapes().get(0)) || !edited.equalStroke(model.getShapes().get(0)))
             fail("Shapes array in Model is wrong!");
-        if(((Action)model.getActions().peek()).getType() !='e' || !r.equalColor(((Action)model.getActions().peek()).getS()) || !r.equalPosition(((Action)model.getActions().peek()).getS()) || !r.equalSize(((Action)model.getActions().peek()).getS()) || !r.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(model.getHistory().peekUndo().getType() !='e' || !edited.equalColor(model.getHistory().peekUndo().getShape()) || !edited.equalPosition(model.getHistory().peekUndo().getShape()) || !edited.equalSize(model.getHistory().peekUndo().getShape()) || !edited.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
 
         //Redo delete
@@ -264,9 +316,273 @@ public class HistoryTests {
         assertEquals(model.getShapes().size(), 0);
         assertNull(model.getLastChange());
 
-        if(!r.equalColor(((Action)model.getActions().peek()).getS()) || !r.equalPosition(((Action)model.getActions().peek()).getS()) || !r.equalSize(((Action)model.getActions().peek()).getS()) || !r.equalStroke(((Action)model.getActions().peek()).getS()))
+        if(!edited.equalColor(model.getHistory().peekUndo().getShape()) || !edited.equalPosition(model.getHistory().peekUndo().getShape()) || !edited.equalSize(model.getHistory().peekUndo().getShape()) || !edited.equalStroke(model.getHistory().peekUndo().getShape()))
             fail("History stack in Model is wrong!");
     }
 
+    /**
+     * This test edits a shape and un-does the edit, then saves and loads the model and checks the history was kept, so the edit can still be
+     * redone and the shape's creation undone after loading.
+     */
+    @Test
+    public void historySaved() throws Exception {
+        model.clear();
+        controller.rectangleTool(10, 50, 10, 50, 5, true);
+        Shape selectedShape = controller.selectShape(20, 20);
+        controller.updateModel(new Rectangle(20, 20, 60, 60, 5, Color.RED, null, "Rectangle"), selectedShape, 2);
+        controller.undo();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(model);
+        out.close();
+        Model loaded = (Model) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+        assertEquals(loaded.getHistory().size(), 1);
+        assertEquals(loaded.getHistory().redoSize(), 1);
+        assertEquals(loaded.getHistory().peekRedo().getType(), 'e');
+
+        loaded.redo();
+        assertEquals(loaded.getShapes().get(0).getFillColor(), Color.RED);
+        assertEquals(loaded.getShapes().get(0).getStartX(), 20);
+
+        loaded.undo();
+        loaded.undo();
+        assertEquals(loaded.getShapes().size(), 0);
+        assertFalse(loaded.getHistory().canUndo());
+    }
+
+    /**
+     * This test changes a shape's stroke width 1000 times, like dragging the stroke slider, and checks that each edit kept only the one field
+     * it changed, that undoing every edit puts the shape back the way it was created, and that redoing them all ends with the last width.
+     * Edits aren't merged in this test, so each one is kept.
+     */
+    @Test
+    public void editsKeptAsDeltas() {
+        model.clear();
+        model.getHistory().setGestureMillis(0);
+        controller.rectangleTool(10, 50, 10, 50, 5, true);
+        Shape created = model.getShapes().get(0);
+
+        for(int i = 1; i <= 1000; i++) {
+            Shape current = model.getShapes().get(0);
+            controller.updateModel(new Rectangle(current.getStartX(), current.getStartY(), current.getEndX(), current.getEndY(),
+                    5 + i % 40, current.getFillColor(), current.getStrokeColor(), "Rectangle"), current, 3);
+        }
+        assertEquals(model.getHistory().size(), 1001);
+        assertEquals(model.getHistory().getDeltaCount(), 1000);
+        assertEquals(model.getShapes().get(0).getStrokeWidth(), 5 + 1000 % 40);
+
+        for(int i = 0; i < 1000; i++)
+            controller.undo();
+        Shape undone = model.getShapes().get(0);
+        assertEquals(undone.getStrokeWidth(), 5);
+        assertTrue(undone.equalColor(created) && undone.equalPosition(created) && undone.equalSize(created));
+
+        for(int i = 0; i < 1000; i++)
+            controller.redo();
+        assertEquals(model.getShapes().get(0).getStrokeWidth(), 5 + 1000 % 40);
+
+        //Editing after undoing drops the deltas of the edits that can no longer be redone
+        controller.undo();
+        controller.undo();
+        controller.clearRedo();
+        assertFalse(model.getHistory().canRedo());
+        assertEquals(model.getHistory().getDeltaCount(), 998);
+        Shape current = model.getShapes().get(0);
+        controller.updateModel(new Rectangle(current.getStartX(), current.getStartY(), current.getEndX(), current.getEndY(),
+                1, current.getFillColor(), current.getStrokeColor(), "Rectangle"), current, 3);
+        assertEquals(model.getHistory().getDeltaCount(), 999);
+        controller.undo();
+        assertEquals(model.getShapes().get(0).getStrokeWidth(), 5 + 998 % 40);
+    }
+
+    /**
+     * This test gives the history a small memory budget and draws and edits 500 shapes, checking the history's memory use stays within
+     * the budget as the oldest commands are moved to disk, then undoes everything, which reads them back, and redoes it all.
+     */
+    @Test
+    public void historySpilledToDisk() throws Exception {
+        model.clear();
+        model.getHistory().setMemoryBudget(4096);
+        for(int i = 0; i < 500; i++) {
+            controller.rectangleTool(i, i + 10, i, i + 10, 5, true);
+            Shape created = model.getShapes().get(i);
+            controller.updateModel(new Rectangle(created.getStartX(), created.getStartY(), created.getEndX(), created.getEndY(), 6,
+                    Color.RED, null, "Rectangle"), created, 0);
+            assertTrue(model.getHistory().getMemoryBytes() <= 4096);
+        }
+        assertEquals(model.getHistory().size(), 1000);
+        assertTrue(model.getHistory().getSpilledBytes() > 0);
+
+        //Saving copies the pages on disk into the saved model without reading them back into memory
+        long memory = model.getHistory().getMemoryBytes(), spilled = model.getHistory().getSpilledBytes();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(model);
+        out.close();
+        assertEquals(model.getHistory().getMemoryBytes(), memory);
+        assertEquals(model.getHistory().getSpilledBytes(), spilled);
+
+        for(int i = 0; i < 1000; i++)
+            controller.undo();
+        assertEquals(model.getShapes().size(), 0);
+        assertFalse(model.getHistory().canUndo());
+        assertEquals(model.getHistory().getSpilledBytes(), 0);
+
+        for(int i = 0; i < 1000; i++)
+            controller.redo();
+        assertEquals(model.getShapes().size(), 500);
+        assertEquals(model.getShapes().get(0).getFillColor(), Color.RED);
+        assertEquals(model.getShapes().get(499).getStrokeWidth(), 6);
+
+        Model loaded = (Model) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        assertEquals(loaded.getHistory().size(), 1000);
+        assertTrue(loaded.getHistory().getSpilledBytes() > 0);
+        for(int i = 0; i < 1000; i++)
+            loaded.undo();
+        assertEquals(loaded.getShapes().size(), 0);
+    }
+
+    /**
+     * This test drags the stroke slider over 100 steps and checks the steps were merged into one edit, which a single undo takes back
+     * to the shape's original width and a single redo puts at the last width. An edit of a different field after the drag is kept separately.
+     */
+    @Test
+    public void gestureCoalesced() {
+        model.clear();
+        controller.rectangleTool(10, 50, 10, 50, 5, true);
+        for(int i = 1; i <= 100; i++) {
+            Shape current = model.getShapes().get(0);
+            controller.updateModel(new Rectangle(current.getStartX(), current.getStartY(), current.getEndX(), current.getEndY(),
+                    5 + i, current.getFillColor(), current.getStrokeColor(), "Rectangle"), current, 3);
+        }
+        assertEquals(model.getHistory().size(), 2);
+        assertEquals(model.getHistory().getDeltaCount(), 1);
+
+        Shape current = model.getShapes().get(0);
+        controller.updateModel(new Rectangle(current.getStartX(), current.getStartY(), current.getEndX(), current.getEndY(),
+                current.getStrokeWidth(), Color.RED, current.getStrokeColor(), "Rectangle"), current, 0);
+        assertEquals(model.getHistory().size(), 3);
+
+        controller.undo();
+        assertEquals(model.getShapes().get(0).getStrokeWidth(), 105);
+        controller.undo();
+        assertEquals(model.getShapes().get(0).getStrokeWidth(), 5);
+        controller.redo();
+        assertEquals(model.getShapes().get(0).getStrokeWidth(), 105);
+
+        //An edit after an undo isn't merged into the edit before it
+        current = model.getShapes().get(0);
+        controller.updateModel(new Rectangle(current.getStartX(), current.getStartY(), current.getEndX(), current.getEndY(),
+                1, current.getFillColor(), current.getStrokeColor(), "Rectangle"), current, 3);
+        assertEquals(model.getHistory().size(), 3);
+    }
+
+    /**
+     * This test adds 10000 shapes in one batch and checks the view was notified once, with the area covering all of them,
+     * and that the batch is one command which a single undo removes and a single redo adds back.
+     */
+    @Test
+    public void batchNotifiesOnce() {
+        model.clear();
+        java.util.ArrayList<Object> notified = new java.util.ArrayList<>();
+        model.addObserver((o, arg) -> notified.add(arg));
+
+        model.batch(() -> {
+            for(int i = 0; i < 10000; i++)
+                controller.rectangleTool(i % 100 * 10, i % 100 * 10 + 5, i / 100 * 10, i / 100 * 10 + 5, 1, true);
+        });
+
+        assertEquals(model.getShapes().size(), 10000);
+        assertEquals(notified.size(), 1);
+        java.awt.Rectangle changed = (java.awt.Rectangle) notified.get(0);
+        assertTrue(changed.contains(0, 0) && changed.contains(995, 995));
+        assertEquals(model.getHistory().size(), 1);
+        assertEquals(model.getHistory().peekUndo().getType(), 'b');
+
+        controller.undo();
+        assertEquals(model.getShapes().size(), 0);
+        assertEquals(notified.size(), 2);
+        assertFalse(model.getHistory().canUndo());
+
+        controller.redo();
+        assertEquals(model.getShapes().size(), 10000);
+        assertEquals(notified.size(), 3);
+
+        //A batch inside another one is part of the outer batch
+        model.beginBatch();
+        controller.rectangleTool(10, 50, 10, 50, 5, true);
+        model.batch(() -> controller.rectangleTool(20, 60, 20, 60, 5, true));
+        assertEquals(notified.size(), 3);
+        model.commit();
+        assertEquals(notified.size(), 4);
+        assertEquals(model.getHistory().size(), 2);
+        assertFalse(model.inBatch());
+    }
+
+    /**
+     * This test undoes past the commands moved to disk, so they're read back, then makes a new edit, and checks the edit log only keeps
+     * the deltas of the edits that can still be undone rather than the ones of the edits that could have been redone.
+     */
+    @Test
+    public void spilledEditsDroppedFromLog() {
+        model.clear();
+        model.getHistory().setGestureMillis(0);
+        model.getHistory().setMemoryBudget(2048);
+        controller.rectangleTool(10, 50, 10, 50, 5, true);
+        for(int i = 1; i <= 300; i++) {
+            Shape current = model.getShapes().get(0);
+            controller.updateModel(new Rectangle(current.getStartX(), current.getStartY(), current.getEndX(), current.getEndY(),
+                    5 + i, current.getFillColor(), current.getStrokeColor(), "Rectangle"), current, 3);
+        }
+        assertTrue(model.getHistory().getSpilledBytes() > 0);
+
+        for(int i = 0; i < 100; i++)
+            controller.undo();
+        controller.clearRedo();
+        Shape current = model.getShapes().get(0);
+        assertEquals(current.getStrokeWidth(), 205);
+        controller.updateModel(new Rectangle(current.getStartX(), current.getStartY(), current.getEndX(), current.getEndY(),
+                1, current.getFillColor(), current.getStrokeColor(), "Rectangle"), current, 3);
+
+        //Every edit changed one field, so each edit in memory has one delta and nothing else is left in the log
+        assertEquals(model.getHistory().size(), 202);
+        assertTrue(model.getHistory().getDeltaCount() * (32 + 25) <= model.getHistory().getMemoryBytes());
+        for(int i = 0; i < 201; i++)
+            controller.undo();
+        assertEquals(model.getShapes().get(0).getStrokeWidth(), 5);
+    }
+
+    /**
+     * This test undoes commands while a batch is open, past where the batch started and past the commands moved to disk so they're read back,
+     * then draws two shapes and checks that only those two became the batch, which a single undo removes.
+     */
+    @Test
+    public void batchAfterUndo() {
+        model.clear();
+        model.getHistory().setMemoryBudget(2048);
+        for(int i = 0; i < 100; i++)
+            controller.rectangleTool(i, i + 10, i, i + 10, 5, true);
+        assertTrue(model.getHistory().getSpilledBytes() > 0);
+
+        model.beginBatch();
+        controller.rectangleTool(200, 250, 200, 250, 5, true);
+        for(int i = 0; i < 51; i++)
+            controller.undo();
+        controller.clearRedo();
+        controller.rectangleTool(300, 350, 300, 350, 5, true);
+        controller.rectangleTool(400, 450, 400, 450, 5, true);
+        model.commit();
+
+        assertEquals(model.getShapes().size(), 52);
+        assertEquals(model.getHistory().size(), 51);
+        assertEquals(model.getHistory().peekUndo().getType(), 'b');
+
+        controller.undo();
+        assertEquals(model.getShapes().size(), 50);
+        assertEquals(model.getShapes().get(49).getStartX(), 49);
+    }
+
 }
 //8
\ No newline at end of file
@@ -0,0 +1,647 @@
+package Tests;
+
+import Controller.Controller;
+import Models.Model;
+import Models.PerformanceCounters;
+import Models.ShapeTypes;
+import Views.CanvasPanel;
+import Views.PngExporter;
+import Views.RenderScheduler;
+import Views.ShapeRenderer;
+import Views.SvgExporter;
+import Views.ThumbnailCache;
+import Views.ThumbnailPreview;
+import Views.TileCache;
+import Views.Viewport;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import static org.junit.Assert.*;
+
+/**
+ * These are JUnit tests for how the canvas is rendered.
+ */
+public class RenderTests {
+
+    private AtomicInteger frames;
+    private RenderScheduler scheduler;
+
+    /**
+     * This is run before the tests to set up the components.
+     */
+    @Before
+    public void setup() {
+        frames = new AtomicInteger();
+        scheduler = new RenderScheduler(frames::incrementAndGet);
+    }
+
+    /**
+     * This test checks that many requests made within a frame are rendered as one frame, and that later requests get a frame of their own.
+     */
+    @Test
+    public void framesCoalesced() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            for (int i = 0; i < 100; i++)
+                scheduler.requestFrame();
+        });
+        Thread.sleep(RenderScheduler.FRAME_MILLIS * 10);
+        SwingUtilities.invokeAndWait(() -> { });
+        assertEquals(100, scheduler.getRequestedFrames());
+        assertEquals(1, scheduler.getRenderedFrames());
+        assertEquals(1, frames.get());
+
+        scheduler.requestFrame();
+        Thread.sleep(RenderScheduler.FRAME_MILLIS * 10);
+        SwingUtilities.invokeAndWait(() -> { });
+        assertEquals(101, scheduler.getRequestedFrames());
+        assertEquals(2, scheduler.getRenderedFrames());
+    }
+
+    /**
+     * This test checks that moving a shape only draws the tiles it was and is in again, and that painting unchanged tiles draws nothing.
+     */
+    @Test
+    public void onlyChangedTilesRendered() {
+        Model model = new Model();
+        Controller controller = new Controller(model);
+        controller.rectangleTool(10, 50, 10, 50, 2, false);
+        controller.rectangleTool(600, 700, 600, 700, 2, true);
+
+        TileCache tiles = new TileCache(model, new ShapeRenderer());
+        Rectangle[] damage = new Rectangle[1];
+        model.addObserver((o, arg) -> damage[0] = (Rectangle) arg);
+        BufferedImage image = new BufferedImage(1024, 1024, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        Rectangle canvas = new Rectangle(0, 0, 1024, 1024);
+
+        tiles.paint(g, canvas);
+        assertEquals(16, tiles.getTilesRendered());
+        tiles.paint(g, canvas);
+        assertEquals(16, tiles.getTilesRendered());
+
+        //Moving the first rectangle within its tile only draws that tile again
+        Models.Shape old = model.getShapes().get(0);
+        Models.Shape moved = ShapeTypes.copy(old);
+        moved.setStartX(100);
+        moved.setEndX(140);
+        controller.updateModel(moved, old, 1);
+        tiles.invalidate(damage[0]);
+        tiles.paint(g, canvas);
+        assertEquals(17, tiles.getTilesRendered());
+
+        //Moving the second rectangle into the first tile draws the tiles it was in and the tile it's now in
+        old = model.getShapes().get(1);
+        moved = ShapeTypes.copy(old);
+        moved.setStartX(150);
+        moved.setEndX(250);
+        moved.setStartY(150);
+        moved.setEndY(250);
+        controller.updateModel(moved, old, 1);
+        tiles.invalidate(damage[0]);
+        tiles.paint(g, canvas);
+        assertTrue(tiles.getTilesRendered() > 17 && tiles.getTilesRendered() < 32);
+        g.dispose();
+    }
+
+    /**
+     * This test pans a screen's worth of canvas across 100 screens of a large drawing and checks the tile cache never keeps more tiles
+     * than its limit, and that tiles that were thrown away are drawn again when they're shown again.
+     */
+    @Test
+    public void tileCacheBounded() {
+        Model model = new Model();
+        Controller controller = new Controller(model);
+        for (int i = 0; i < 100; i++)
+            controller.rectangleTool(i * 1024, i * 1024 + 50, 10, 50, 2, false);
+
+        TileCache tiles = new TileCache(model, new ShapeRenderer());
+        tiles.setMaxTiles(32);
+        BufferedImage image = new BufferedImage(1024, 768, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        Viewport viewport = new Viewport();
+        Rectangle screen = new Rectangle(0, 0, 1024, 768);
+        for (int i = 0; i < 100; i++) {
+            tiles.paint(g, screen, viewport);
+            assertTrue(tiles.getTileCount() <= 32);
+            viewport.pan(-1024, 0);
+        }
+        assertEquals(1200, tiles.getTilesRendered());
+
+        //The first screen's tiles were thrown away long ago, so they're drawn again
+        tiles.paint(g, screen, new Viewport());
+        assertEquals(1212, tiles.getTilesRendered());
+        g.dispose();
+    }
+
+    /**
+     * This test checks that drawing tiles in parallel gives exactly the same picture as drawing them one after another.
+     */
+    @Test
+    public void parallelTilesMatchSerial() {
+        Model model = new Model();
+        Controller controller = new Controller(model);
+        Random random = new Random(12);
+        for (int i = 0; i < 2000; i++) {
+            int x = random.nextInt(1000), y = random.nextInt(1000);
+            controller.chooseColor(new Color(random.nextInt()));
+            controller.hexagonTool(x, x + random.nextInt(200), y, y + random.nextInt(200), random.nextInt(5), random.nextBoolean());
+        }
+
+        BufferedImage[] images = new BufferedImage[2];
+        for (int i = 0; i < 2; i++) {
+            TileCache tiles = new TileCache(model, new ShapeRenderer());
+            tiles.setParallel(i == 1);
+            images[i] = new BufferedImage(1200, 1200, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = images[i].createGraphics();
+            tiles.paint(g, new Rectangle(0, 0, 1200, 1200));
+            g.dispose();
+        }
+        for (int x = 0; x < 1200; x++)
+            for (int y = 0; y < 1200; y++)
+                assertEquals(images[0].getRGB(x, y), images[1].getRGB(x, y));
+    }
+
+    /**
+     * This test draws a model into an image without a window and checks the shapes are where they should be, in drawing order.
+     */
+    @Test
+    public void renderHeadless() {
+        Model model = new Model();
+        Controller controller = new Controller(model);
+        controller.chooseColor(Color.RED);
+        controller.rectangleTool(10, 60, 10, 60, 2, true);
+        controller.chooseColor(Color.BLUE);
+        controller.rectangleTool(40, 90, 40, 90, 2, true);
+        //A line from (0, 99) to (99, 99)
+        controller.chooseColor(Color.GREEN);
+        controller.lineTool(0, 99, 99, 99, 1, false);
+
+        BufferedImage image = new ShapeRenderer().render(model, 100, 100, Color.WHITE);
+        assertEquals(Color.RED.getRGB(), image.getRGB(20, 20));
+        assertEquals(Color.BLUE.getRGB(), image.getRGB(50, 50));
+        assertEquals(Color.WHITE.getRGB(), image.getRGB(80, 20));
+        assertEquals(Color.GREEN.getRGB(), image.getRGB(50, 99));
+    }
+
+    /**
+     * This test checks that zooming keeps the point under the mouse in place and that canvas and model coordinates map back and forth.
+     */
+    @Test
+    public void viewportMapping() {
+        Viewport viewport = new Viewport();
+        viewport.pan(-100, -50);
+        assertEquals(100, viewport.toModelX(0));
+        assertEquals(50, viewport.toModelY(0));
+
+        int modelX = viewport.toModelX(200), modelY = viewport.toModelY(120);
+        viewport.zoom(4, 200, 120);
+        assertEquals(4.0, viewport.getScale(), 0);
+        assertEquals(modelX, viewport.toModelX(200));
+        assertEquals(modelY, viewport.toModelY(120));
+
+        Rectangle area = new Rectangle(300, 170, 10, 20);
+        Rectangle view = viewport.toView(area);
+        assertEquals(40, view.width);
+        assertEquals(80, view.height);
+        assertEquals(area, viewport.toModel(view));
+
+        viewport.zoom(1000, 0, 0);
+        assertEquals(Viewport.MAX_SCALE, viewport.getScale(), 0);
+    }
+
+    /**
+     * This test checks that painting a zoomed in part of a large drawing only draws the shapes near that part.
+     */
+    @Test
+    public void offscreenShapesCulled() {
+        Model model = new Model();
+        Controller controller = new Controller(model);
+        Random random = new Random(14);
+        for (int i = 0; i < 10000; i++) {
+            int x = random.nextInt(10000), y = random.nextInt(10000);
+            controller.rectangleTool(x, x + 20, y, y + 20, 2, true);
+        }
+
+        ShapeRenderer renderer = new ShapeRenderer();
+        TileCache tiles = new TileCache(model, renderer);
+        Viewport viewport = new Viewport();
+        viewport.zoom(2, 0, 0);
+        viewport.pan(-5000, -5000);
+
+        BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        tiles.paint(g, new Rectangle(0, 0, 800, 600), viewport);
+        g.dispose();
+        long drawn = renderer.getDrawnFull() + renderer.getDrawnSimplified() + renderer.getDrawnAsPixels();
+        assertTrue(drawn > 0);
+        assertTrue(drawn < 100);
+    }
+
+    /**
+     * This test checks which level of detail shapes are drawn at when zoomed out, and that the highest fidelity draws them all in full.
+     */
+    @Test
+    public void levelOfDetail() {
+        Model model = new Model();
+        Controller controller = new Controller(model);
+        //Tiny hexagons, small hexagons and large hexagons
+        for (int i = 0; i < 100; i++) {
+            controller.hexagonTool(i * 100, i * 100 + 5, 0, 5, 1, false);
+            controller.hexagonTool(i * 100, i * 100 + 50, 200, 250, 1, true);
+            controller.hexagonTool(i * 100, i * 100 + 500, 400, 900, 1, false);
+        }
+
+        ShapeRenderer renderer = new ShapeRenderer();
+        BufferedImage image = new BufferedImage(1000, 100, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.scale(0.1, 0.1);
+        renderer.draw(g, model);
+        assertEquals(100, renderer.getDrawnAsPixels());
+        assertEquals(100, renderer.getDrawnSimplified());
+        assertEquals(100, renderer.getDrawnFull());
+
+        //At actual size everything is drawn in full
+        renderer.resetCounters();
+        g.scale(10, 10);
+        renderer.draw(g, model);
+        assertEquals(300, renderer.getDrawnFull());
+
+        renderer.resetCounters();
+        renderer.setFidelity(1);
+        g.scale(0.1, 0.1);
+        renderer.draw(g, model);
+        assertEquals(300, renderer.getDrawnFull());
+        g.dispose();
+    }
+
+    /**
+     * This test exports a model as a PNG in strips that don't divide the image's height and checks it decodes to the same picture as drawing it in one go,
+     * both with a background and with a transparent one.
+     */
+    @Test
+    public void exportPngInStrips() throws Exception {
+        Model model = new Model();
+        Controller controller = new Controller(model);
+        Random random = new Random(16);
+        for (int i = 0; i < 300; i++) {
+            int x = random.nextInt(300), y = random.nextInt(200);
+            controller.chooseColor(new Color(random.nextInt(), true));
+            controller.octagonTool(x, x + random.nextInt(60), y, y + random.nextInt(60), random.nextInt(4), random.nextBoolean());
+        }
+
+        ShapeRenderer renderer = new ShapeRenderer();
+        PngExporter exporter = new PngExporter(renderer);
+        exporter.setStripHeight(7);
+        Rectangle area = ShapeRenderer.extent(model);
+        for (Color background : new Color[] { Color.WHITE, null }) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            exporter.export(model, area, 1, background, out);
+            BufferedImage exported = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+            BufferedImage expected = new BufferedImage(area.width, area.height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = expected.createGraphics();
+            if(background != null) {
+                g.setColor(background);
+                g.fillRect(0, 0, area.width, area.height);
+            }
+            g.translate(-area.x, -area.y);
+            renderer.draw(g, model, area);
+            g.dispose();
+
+            assertEquals(area.width, exported.getWidth());
+            assertEquals(area.height, exported.getHeight());
+            for (int x = 0; x < area.width; x++)
+                for (int y = 0; y < area.height; y++)
+                    assertEquals(expected.getRGB(x, y), exported.getRGB(x, y));
+        }
+    }
+
+    /**
+     * This test exports one of each shape as SVG and checks the drawing is well formed, has an element for every shape,
+     * and draws lines between the same points as the canvas.
+     */
+    @Test
+    public void exportSvg() throws Exception {
+        Model model = new Model();
+        Controller controller = new Controller(model);
+        controller.chooseColor(new Color(0x12, 0x34, 0x56));
+        //A line from (0, 10) to (100, 110)
+        controller.lineTool(0, 10, 100, 110, 3, false);
+        controller.triangleTool(10, 50, 10, 50, 2, true, true);
+        controller.squareTool(10, 50, 10, 50, 2, false);
+        controller.rectangleTool(10, 50, 10, 60, 2, true);
+        controller.ellipseTool(10, 50, 10, 60, 2, true);
+        controller.circleTool(10, 51, 10, 60, 0, false);
+        controller.hexagonTool(10, 50, 10, 50, 2, false);
+        controller.octagonTool(10, 50, 10, 50, 2, true);
+        controller.parallelogramTool(10, 50, 10, 50, 2, false);
+        controller.drawPolygon(10, 50, 10, 50, 2, false, 5);
+
+        StringWriter out = new StringWriter();
+        new SvgExporter().export(model, Color.WHITE, out);
+        Document svg = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(out.toString())));
+
+        assertEquals(1, svg.getElementsByTagName("line").getLength());
+        //The background and the rectangle and square
+        assertEquals(3, svg.getElementsByTagName("rect").getLength());
+        assertEquals(2, svg.getElementsByTagName("ellipse").getLength());
+        assertEquals(4, svg.getElementsByTagName("polygon").getLength());
+        assertEquals(1, svg.getElementsByTagName("polyline").getLength());
+
+        Element line = (Element) svg.getElementsByTagName("line").item(0);
+        assertEquals("0", line.getAttribute("x1"));
+        assertEquals("10", line.getAttribute("y1"));
+        assertEquals("100", line.getAttribute("x2"));
+        assertEquals("110", line.getAttribute("y2"));
+        assertEquals("#123456", line.getAttribute("stroke"));
+
+        Element circle = (Element) svg.getElementsByTagName("ellipse").item(1);
+        assertEquals("30.5", circle.getAttribute("cx"));
+        assertEquals("20.5", circle.getAttribute("ry"));
+        assertEquals("none", circle.getAttribute("fill"));
+        assertEquals("1", circle.getAttribute("stroke-width"));
+    }
+
+    /**
+     * This test makes the thumbnail of a saved canvas and checks it's kept on disk, so it's only made again once the file changes.
+     */
+    @Test
+    public void thumbnailsCached() throws Exception {
+        File folder = Files.createTempDirectory("thumbnails").toFile();
+        File saved = new File(folder, "drawing");
+        Model model = new Model();
+        Controller controller = new Controller(model);
+        controller.chooseColor(Color.RED);
+        controller.rectangleTool(100, 500, 100, 300, 2, true);
+        controller.save(saved);
+        saved = new File(folder, "drawing.ser");
+
+        ThumbnailCache cache = new ThumbnailCache(new File(folder, "cache"));
+        BufferedImage thumbnail = cache.thumbnail(saved).get();
+        assertEquals(ThumbnailCache.THUMBNAIL_SIZE, thumbnail.getWidth());
+        //The middle of the rectangle is red
+        assertEquals(Color.RED.getRGB(), thumbnail.getRGB(thumbnail.getWidth() * 3 / 5, thumbnail.getHeight() * 2 / 3));
+        assertSame(thumbnail, cache.thumbnail(saved).get());
+        assertEquals(1, cache.getFilesRead());
+
+        //A new cache finds the thumbnail on disk without reading the file
+        ThumbnailCache restarted = new ThumbnailCache(new File(folder, "cache"));
+        assertNotNull(restarted.thumbnail(saved).get());
+        assertEquals(0, restarted.getFilesRead());
+
+        //Saving the file again makes a new thumbnail
+        controller.clear();
+        controller.save(new File(folder, "drawing"));
+        saved.setLastModified(saved.lastModified() + 2000);
+        assertEquals(Color.WHITE.getRGB(), restarted.thumbnail(saved).get().getRGB(0, 0));
+        assertEquals(1, restarted.getFilesRead());
+
+        //Files which aren't saved canvases have no thumbnail
+        File text = new File(folder, "notes.ser");
+        Files.write(text.toPath(), "not a canvas".getBytes());
+        assertNull(restarted.thumbnail(text).get());
+    }
+
+    /**
+     * This test makes the thumbnails of saved canvases whose histories were moved to disk, and checks no spill files are left behind
+     * and the cache folder is kept under its size limit by deleting the thumbnail used least recently.
+     */
+    @Test
+    public void thumbnailCacheCleanedUp() throws Exception {
+        File folder = Files.createTempDirectory("thumbnails").toFile();
+        Model model = new Model();
+        Controller controller = new Controller(model);
+        model.getHistory().setMemoryBudget(2048);
+        for(int i = 0; i < 100; i++)
+            controller.rectangleTool(i, i + 10, i, i + 10, 2, true);
+        assertTrue(model.getHistory().getSpilledBytes() > 0);
+        File[] saved = new File[3];
+        for(int i = 0; i < saved.length; i++) {
+            controller.save(new File(folder, "drawing" + i));
+            saved[i] = new File(folder, "drawing" + i + ".ser");
+        }
+
+        File temp = new File(System.getProperty("java.io.tmpdir"));
+        FilenameFilter spills = (dir, name) -> name.startsWith("javapaint-history");
+        int spillFiles = temp.list(spills).length;
+        File cacheFolder = new File(folder, "cache");
+        ThumbnailCache cache = new ThumbnailCache(cacheFolder);
+        cache.thumbnail(saved[0]).get();
+        assertEquals(spillFiles, temp.list(spills).length);
+
+        //The drawings are the same so their thumbnails are the same size, and there's room for two of them
+        File[] cached = cacheFolder.listFiles();
+        assertEquals(1, cached.length);
+        cache.setDiskBytes(2 * cached[0].length());
+        cached[0].setLastModified(System.currentTimeMillis() - 60000);
+        cache.thumbnail(saved[1]).get();
+        cache.thumbnail(saved[2]).get();
+        assertEquals(2, cacheFolder.listFiles().length);
+        assertFalse(cached[0].exists());
+
+        ThumbnailCache restarted = new ThumbnailCache(cacheFolder);
+        restarted.thumbnail(saved[2]).get();
+        assertEquals(0, restarted.getFilesRead());
+        restarted.thumbnail(saved[0]).get();
+        assertEquals(1, restarted.getFilesRead());
+    }
+
+    /**
+     * This test selects a file whose thumbnail can't be made in a file chooser, and checks the preview stops showing that it's loading.
+     */
+    @Test
+    public void thumbnailPreviewFailure() throws Exception {
+        File folder = Files.createTempDirectory("thumbnails").toFile();
+        File broken = new File(folder, "broken.ser");
+        Files.write(broken.toPath(), new byte[] { 1, 2, 3 });
+        ThumbnailCache failing = new ThumbnailCache(new File(folder, "cache")) {
+            @Override
+            public CompletableFuture<BufferedImage> thumbnail(File file) {
+                CompletableFuture<BufferedImage> future = new CompletableFuture<>();
+                future.completeExceptionally(new IOException("Unreadable"));
+                return future;
+            }
+        };
+
+        JFileChooser chooser = new JFileChooser(folder);
+        ThumbnailPreview preview = new ThumbnailPreview(chooser, failing);
+        chooser.setSelectedFile(broken);
+        SwingUtilities.invokeAndWait(() -> { });
+        assertEquals("No preview", preview.getMessage());
+    }
+
+    /**
+     * This test checks the performance counters only count while they're turned on, and then count outline and stroke reuse,
+     * shapes the spatial index skipped and time spent notifying the view.
+     */
+    @Test
+    public void performanceCounters() {
+        Model model = new Model();
+        Controller controller = new Controller(model);
+        model.addObserver((o, arg) -> { });
+        controller.rectangleTool(0, 10, 0, 10, 2, false);
+        controller.rectangleTool(1000, 1010, 1000, 1010, 2, false);
+        ShapeRenderer renderer = new ShapeRenderer();
+        Graphics2D g = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB).createGraphics();
+
+        PerformanceCounters.setEnabled(false);
+        PerformanceCounters.reset();
+        renderer.draw(g, model, new Rectangle(0, 0, 100, 100));
+        controller.rectangleTool(20, 30, 20, 30, 2, false);
+        assertEquals(0, PerformanceCounters.shapesCulled.sum() + PerformanceCounters.notifications.sum()
+                + PerformanceCounters.outlineHits.sum() + PerformanceCounters.outlineMisses.sum() + PerformanceCounters.strokeHits.sum());
+
+        try {
+            PerformanceCounters.setEnabled(true);
+            renderer.draw(g, model, new Rectangle(0, 0, 100, 100));
+            renderer.draw(g, model, new Rectangle(0, 0, 100, 100));
+            assertEquals(4, PerformanceCounters.strokeHits.sum() + PerformanceCounters.strokeMisses.sum());
+            assertEquals(4, PerformanceCounters.outlineHits.sum() + PerformanceCounters.outlineMisses.sum());
+
+            //Painting four tiles leaves the shape far away out of all of them, which is counted once for the paint,
+            //and painting them again draws nothing so nothing more is culled
+            TileCache tiles = new TileCache(model, renderer);
+            Graphics2D canvas = new BufferedImage(512, 512, BufferedImage.TYPE_INT_ARGB).createGraphics();
+            tiles.paint(canvas, new Rectangle(0, 0, 512, 512));
+            assertEquals(4, tiles.getTilesRendered());
+            assertEquals(1, PerformanceCounters.shapesCulled.sum());
+            tiles.paint(canvas, new Rectangle(0, 0, 512, 512));
+            assertEquals(1, PerformanceCounters.shapesCulled.sum());
+            canvas.dispose();
+
+            controller.rectangleTool(40, 50, 40, 50, 2, false);
+            assertEquals(1, PerformanceCounters.notifications.sum());
+            assertTrue(PerformanceCounters.notifyNanos.sum() > 0);
+        } finally {
+            PerformanceCounters.setEnabled(false);
+        }
+    }
+
+    /**
+     * This test paints the canvas while a shape is being dragged out, and checks the preview isn't counted among the shapes drawn.
+     */
+    @Test
+    public void previewNotCounted() {
+        Model model = new Model();
+        Controller controller = new Controller(model);
+        controller.rectangleTool(10, 50, 10, 50, 2, true);
+        CanvasPanel canvas = new CanvasPanel(model);
+        canvas.setSize(200, 200);
+        canvas.setPreview(new Models.Rectangle(60, 60, 90, 90, 2, Color.RED, null, "Rectangle"));
+
+        Graphics2D g = new BufferedImage(200, 200, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        canvas.paint(g);
+        canvas.paint(g);
+        g.dispose();
+        ShapeRenderer renderer = canvas.getRenderer();
+        assertEquals(1, renderer.getDrawnFull() + renderer.getDrawnSimplified() + renderer.getDrawnAsPixels());
+    }
+
+    /**
+     * This test draws rows of thin circles, which are batched into paths, among other shapes in a few colors,
+     * and checks it looks exactly the same as drawing every shape on its own.
+     */
+    @Test
+    public void batchedDrawingUnchanged() {
+        Model model = new Model();
+        Controller controller = new Controller(model);
+        Random random = new Random(7);
+        Color[] colors = { Color.RED, Color.BLUE, new Color(0, 128, 0, 100) };
+        for (int y = 0; y < 300; y += 20) {
+            for (int x = 0; x < 300; x += 20) {
+                controller.chooseColor(colors[random.nextInt(colors.length)]);
+                switch (random.nextInt(4)) {
+                    case 0:
+                        controller.rectangleTool(x, x + random.nextInt(20), y, y + random.nextInt(20), random.nextInt(3), random.nextBoolean());
+                        break;
+                    case 1:
+                        controller.hexagonTool(x, x + 12, y, y + 12, 1, random.nextBoolean());
+                        break;
+                    default:
+                        controller.circleTool(x, x + 4 + random.nextInt(6), y, y + 10, random.nextInt(2), false);
+                        break;
+                }
+            }
+        }
+
+        ShapeRenderer batched = new ShapeRenderer(), single = new ShapeRenderer();
+        single.setBatching(false);
+        BufferedImage expected = single.render(model, 320, 320, Color.WHITE), actual = batched.render(model, 320, 320, Color.WHITE);
+        for (int y = 0; y < 320; y++) {
+            for (int x = 0; x < 320; x++) {
+                assertEquals("Pixel " + x + ", " + y, expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+
+    /**
+     * This test draws a shape with no fill or stroke color among circles that are batched, and checks it doesn't stop the frame being drawn
+     * and looks the same as drawing every shape on its own.
+     */
+    @Test
+    public void batchedShapeWithoutColor() {
+        Model model = new Model();
+        Controller controller = new Controller(model);
+        controller.chooseColor(Color.RED);
+        controller.circleTool(10, 18, 10, 18, 1, false);
+        controller.circleTool(30, 38, 10, 18, 1, false);
+        controller.chooseColor(null);
+        controller.rectangleTool(50, 70, 10, 30, 1, true);
+        controller.chooseColor(Color.BLUE);
+        controller.circleTool(80, 88, 10, 18, 1, false);
+
+        ShapeRenderer batched = new ShapeRenderer(), single = new ShapeRenderer();
+        single.setBatching(false);
+        BufferedImage expected = single.render(model, 100, 40, Color.WHITE), actual = batched.render(model, 100, 40, Color.WHITE);
+        for (int y = 0; y < 40; y++) {
+            for (int x = 0; x < 100; x++) {
+                assertEquals("Pixel " + x + ", " + y, expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+
+    /**
+     * This test exports a snapshot of a canvas with a shape that has no fill or stroke color, and checks the export doesn't fail
+     * and the shape is written without either.
+     */
+    @Test
+    public void exportSvgShapeWithoutColor() throws Exception {
+        Model model = new Model();
+        Controller controller = new Controller(model);
+        controller.chooseColor(null);
+        controller.rectangleTool(10, 50, 10, 50, 2, true);
+        controller.chooseColor(Color.RED);
+        controller.circleTool(60, 80, 10, 30, 1, false);
+
+        StringWriter out = new StringWriter();
+        new SvgExporter().export(model.snapshot(), Color.WHITE, out);
+        Document svg = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(out.toString())));
+
+        //The background and the rectangle
+        Element rect = (Element) svg.getElementsByTagName("rect").item(1);
+        assertEquals("none", rect.getAttribute("fill"));
+        assertEquals("none", rect.getAttribute("stroke"));
+        Element circle = (Element) svg.getElementsByTagName("ellipse").item(0);
+        assertEquals("#ff0000", circle.getAttribute("stroke"));
+    }
+}
@@ -0,0 +1,186 @@
+package Tests;
+
+import Controller.Controller;
+import Models.Model;
+import Models.RTree;
+import Models.Rectangle;
+import Models.Shape;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * These are JUnit tests for finding shapes by position on the canvas.
+ */
+public class SpatialTests {
+
+    private Model model;
+    private Controller controller;
+
+    /**
+     * This is run before the tests to set up the components.
+     */
+    @Before
+    public void setup() {
+        model = new Model();
+        controller = new Controller(model);
+    }
+
+    /**
+     * This test adds, moves and removes many random rectangles in an R-tree and checks its searches against checking every rectangle.
+     */
+    @Test
+    public void rTreeMatchesScan() {
+        RTree tree = new RTree();
+        HashMap<Long, java.awt.Rectangle> expected = new HashMap<>();
+        Random random = new Random(5001);
+
+        for (int step = 0; step < 5000; step++) {
+            long id = random.nextInt(800);
+            if(random.nextInt(4) == 0) {
+                tree.remove(id);
+                expected.remove(id);
+            } else {
+                java.awt.Rectangle r = new java.awt.Rectangle(random.nextInt(2000), random.nextInt(2000), random.nextInt(100), random.nextInt(100));
+                tree.put(id, r);
+                expected.put(id, r);
+            }
+        }
+        assertEquals(tree.size(), expected.size());
+
+        for (int query = 0; query < 200; query++) {
+            java.awt.Rectangle area = new java.awt.Rectangle(random.nextInt(2000), random.nextInt(2000), random.nextInt(300), random.nextInt(300));
+            long[] found = tree.search(area.x, area.y, area.x + area.width, area.y + area.height);
+            Arrays.sort(found);
+            long[] scanned = expected.entrySet().stream()
+                    .filter(e -> e.getValue().x <= area.x + area.width && e.getValue().x + e.getValue().width >= area.x
+                            && e.getValue().y <= area.y + area.height && e.getValue().y + e.getValue().height >= area.y)
+                    .mapToLong(e -> e.getKey()).sorted().toArray();
+            assertTrue("Search " + query + " is wrong!", Arrays.equals(found, scanned));
+        }
+    }
+
+    /**
+     * This test checks that the spatial index follows shapes as they are moved, deleted, and brought back with undo and redo.
+     */
+    @Test
+    public void selectAfterHistory() {
+        model.clear();
+        controller.rectangleTool(10, 50, 10, 50, 5, true);
+
+        Shape selectedShape = controller.selectShape(20, 20);
+        controller.updateModel(new Rectangle(110, 110, 150, 150, 5, Color.BLACK, null, "Rectangle"), selectedShape, 1);
+        assertNull(controller.selectShape(20, 20));
+        assertNotNull(controller.selectShape(120, 120));
+
+        controller.undo();
+        assertNotNull(controller.selectShape(20, 20));
+        assertNull(controller.selectShape(120, 120));
+
+        controller.redo();
+        selectedShape = controller.selectShape(120, 120);
+        controller.delete(selectedShape);
+        controller.updateModel(selectedShape, null, 4);
+        assertNull(controller.selectShape(120, 120));
+        assertEquals(model.shapesIn(new java.awt.Rectangle(0, 0, 500, 500)).length, 0);
+
+        controller.undo();
+        assertNotNull(controller.selectShape(120, 120));
+        assertEquals(model.shapesIn(new java.awt.Rectangle(0, 0, 500, 500)).length, 1);
+    }
+
+    /**
+     * This test draws overlapping shapes and checks that the one drawn last is selected.
+     */
+    @Test
+    public void selectTopmost() {
+        model.clear();
+        controller.rectangleTool(10, 50, 10, 50, 5, true);
+        controller.rectangleTool(30, 70, 30, 70, 5, true);
+
+        assertEquals(controller.selectShape(40, 40).getId(), model.getShapes().get(1).getId());
+        assertEquals(controller.selectShape(20, 20).getId(), model.getShapes().get(0).getId());
+    }
+
+    /**
+     * This test checks that clicks inside a shape's bounding box but outside the shape itself don't select it.
+     */
+    @Test
+    public void selectExactOutline() {
+        model.clear();
+        //A line from (0, 0) to (100, 100)
+        controller.lineTool(0, 0, 100, 100, 2, false);
+        assertNotNull(controller.selectShape(50, 51));
+        assertNull(controller.selectShape(80, 20));
+
+        //A free-form triangle with corners at (200, 0), (300, 0) and (300, 100)
+        controller.triangleTool(200, 300, 0, 100, 2, true, false);
+        assertNotNull(controller.selectShape(290, 20));
+        assertNull(controller.selectShape(210, 90));
+
+        //A circle fitted in (400, 0) to (500, 100)
+        controller.circleTool(400, 500, 0, 100, 2, false);
+        assertNotNull(controller.selectShape(450, 50));
+        assertNull(controller.selectShape(405, 5));
+
+        //A rectangle under the triangle is selected through the triangle's empty corner
+        controller.rectangleTool(200, 300, 0, 100, 2, true);
+        controller.triangleTool(200, 300, 0, 100, 2, true, false);
+        assertEquals(controller.selectShape(210, 90).getShapeType(), "Rectangle");
+        assertEquals(controller.selectShape(290, 20).getShapeType(), "Triangle");
+    }
+
+    /**
+     * This test checks that a shape keeps its outline between draws and builds a new one when its coordinates change.
+     */
+    @Test
+    public void outlineKeptUntilMoved() {
+        model.clear();
+        controller.hexagonTool(0, 100, 0, 100, 2, false);
+        Shape hexagon = model.getShapes().get(0);
+        java.awt.Shape outline = hexagon.getOutline();
+        assertSame(outline, hexagon.getOutline());
+        assertTrue(outline.contains(50, 50));
+
+        hexagon.setStrokeWidth(4);
+        assertSame(outline, hexagon.getOutline());
+
+        hexagon.setStartX(200);
+        hexagon.setEndX(300);
+        assertNotSame(outline, hexagon.getOutline());
+        assertTrue(hexagon.getOutline().contains(250, 50));
+        assertFalse(hexagon.getOutline().contains(50, 50));
+    }
+
+    /**
+     * This test deletes random shapes and undoes and redoes random creations, then checks every shape is still found at its slot by its ID.
+     */
+    @Test
+    public void slotsFollowDeletes() {
+        Random random = new Random(4);
+        for (int i = 0; i < 500; i++)
+            controller.rectangleTool(i, i + 10, i, i + 10, 1, false);
+        for (int i = 0; i < 2000; i++) {
+            int action = random.nextInt(3);
+            if(action == 0 && model.getShapes().size() > 0)
+                model.delete(model.getShapes().get(random.nextInt(model.getShapes().size())));
+            else if(action == 1)
+                controller.rectangleTool(i, i + 10, i, i + 10, 1, false);
+            else
+                model.undo();
+        }
+        assertTrue(model.getShapes().size() > 0);
+        for (int slot = 0; slot < model.getShapes().size(); slot++) {
+            long id = model.getStore().getId(slot);
+            assertEquals(model.indexOf(id), slot);
+            assertSame(model.getShape(id), model.getShapes().get(slot));
+        }
+        assertEquals(model.indexOf(-5), -1);
+    }
+}
@@ -0,0 +1,170 @@
+package Tests;
+
+import Controller.Controller;
+import Models.*;
+import Models.Polygon;
+import Models.Rectangle;
+import Models.Shape;
+import org.junit.Test;
+
+import java.awt.*;
+import java.io.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * These are JUnit tests for the model's shape stores.
+ */
+public class StorageTests {
+
+    /**
+     * This method draws, edits and deletes shapes in a model so that the stores can be compared.
+     * @param model - the model to draw in
+     */
+    private void drawShapes(Model model) {
+        Controller controller = new Controller(model);
+        controller.rectangleTool(10, 50, 10, 50, 5, true);
+        controller.drawPolygon(60, 90, 60, 90, 3, false, 12);
+        controller.triangleTool(100, 150, 100, 150, 2, false, false);
+        controller.lineTool(0, 10, 0, 10, 1, false);
+
+        Shape selectedShape = controller.selectShape(20, 20);
+        controller.updateModel(new Rectangle(10, 10, 50, 50, 5, Color.RED, null, "Rectangle"), selectedShape, 0);
+        controller.delete(model.getShapes().get(3));
+    }
+
+    /**
+     * This method checks that two models hold the same shapes in the same order.
+     * @param expected - the model with the expected shapes
+     * @param actual - the model to check
+     */
+    private void assertSameShapes(Model expected, Model actual) {
+        assertEquals(expected.getShapes().size(), actual.getShapes().size());
+        for (int i = 0; i < expected.getShapes().size(); i++) {
+            Shape e = expected.getShapes().get(i);
+            Shape a = actual.getShapes().get(i);
+            assertEquals(e.getClass(), a.getClass());
+            if(!e.equalColor(a) || !e.equalPosition(a) || !e.equalSize(a) || !e.equalStroke(a))
+                fail("Shape " + i + " is wrong!");
+            assertEquals(ShapeTypes.extraOf(e), ShapeTypes.extraOf(a));
+        }
+    }
+
+    /**
+     * This test draws the same shapes in a model using the default store and one using the columnar store and checks they match,
+     * including after undoing and redoing.
+     */
+    @Test
+    public void columnarStore() {
+        Model list = new Model();
+        Model columnar = new Model(new ColumnarShapeStore());
+        drawShapes(list);
+        drawShapes(columnar);
+        assertSameShapes(list, columnar);
+
+        assertEquals(((Polygon) columnar.getShapes().get(1)).getNumberOfSides(), 12);
+        assertEquals(columnar.getStore().getFillColor(0), Color.RED.getRGB());
+        assertFalse(columnar.getStore().hasStrokeColor(0));
+
+        list.undo();
+        columnar.undo();
+        list.undo();
+        columnar.undo();
+        assertSameShapes(list, columnar);
+
+        list.redo();
+        columnar.redo();
+        assertSameShapes(list, columnar);
+    }
+
+    /**
+     * This test draws the same shapes in a model using the default store and one using the off-heap store and checks they match,
+     * including after undoing and redoing.
+     */
+    @Test
+    public void offHeapStore() {
+        Model list = new Model();
+        Model offHeap = new Model(new OffHeapShapeStore());
+        drawShapes(list);
+        drawShapes(offHeap);
+        assertSameShapes(list, offHeap);
+
+        assertEquals(((Polygon) offHeap.getShapes().get(1)).getNumberOfSides(), 12);
+        assertFalse(((Triangle) offHeap.getShapes().get(2)).getEquilateral());
+
+        list.undo();
+        offHeap.undo();
+        list.undo();
+        offHeap.undo();
+        assertSameShapes(list, offHeap);
+
+        list.redo();
+        offHeap.redo();
+        assertSameShapes(list, offHeap);
+
+        //Enough shapes to make the buffer grow a few times
+        Controller controller = new Controller(offHeap);
+        for (int i = 0; i < 1000; i++)
+            controller.drawPolygon(i, i + 10, i, i + 10, 1, true, 9 + i % 12);
+        assertEquals(offHeap.getShapes().size(), 1004);
+        assertEquals(((Polygon) offHeap.getShapes().get(1003)).getNumberOfSides(), 9 + 999 % 12);
+        assertEquals(offHeap.getStore().getStartX(1003), 999);
+    }
+
+    /**
+     * This test saves and loads a model using the columnar store and checks that the shapes and store are the same.
+     */
+    @Test
+    public void saveAndLoadColumnarStore() throws IOException, ClassNotFoundException {
+        Model model = new Model(new ColumnarShapeStore());
+        drawShapes(model);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(model);
+        out.close();
+        Model loadModel = (Model) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+        assertTrue(loadModel.getStore() instanceof ColumnarShapeStore);
+        assertSameShapes(model, loadModel);
+        long id = model.getShapes().get(1).getId();
+        assertEquals(loadModel.indexOf(id), 1);
+    }
+
+    /**
+     * This test saves and loads a model using the off-heap store and checks that the shapes and store are the same.
+     */
+    @Test
+    public void saveAndLoadOffHeapStore() throws IOException, ClassNotFoundException {
+        Model model = new Model(new OffHeapShapeStore());
+        drawShapes(model);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(model);
+        out.close();
+        Model loadModel = (Model) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+        assertTrue(loadModel.getStore() instanceof OffHeapShapeStore);
+        assertSameShapes(model, loadModel);
+    }
+
+    /**
+     * This test takes a snapshot of a model, as exports do, and checks it has the same shapes and isn't changed by later changes to the model,
+     * including a shape being changed in place.
+     */
+    @Test
+    public void snapshotIndependent() {
+        Model model = new Model();
+        drawShapes(model);
+        Model snapshot = model.snapshot();
+        assertSameShapes(model, snapshot);
+        assertFalse(snapshot.getHistory().canUndo());
+
+        int startX = model.getShapes().get(0).getStartX();
+        model.getShapes().get(0).setStartX(startX + 500);
+        new Controller(model).lineTool(0, 20, 0, 20, 1, false);
+        assertEquals(snapshot.getShapes().size(), 3);
+        assertEquals(snapshot.getShapes().get(0).getStartX(), startX);
+    }
+}
@@ -1,7 +1,6 @@
 package Tests;
 
 import Controller.Controller;
-import Models.Action;
 import Models.Model;
 import Models.Rectangle;
 import Models.Shape;
@@ -79,7 +78,7 @@ public class VersionControlTests {
         model.clear();
         controller.rectangleTool(10, 50, 10, 50, 5, true);
         model.clear();
-        if(model.getShapes().size() != 0 || model.getActions().size() != 0)
+        if(model.getShapes().size() != 0 || model.getHistory().size() != 0)
             fail("Error clearing canvas!");
     }
 }
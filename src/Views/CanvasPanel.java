@@ -0,0 +1,263 @@
+package Views;
+
+import Models.Geometry;
+import Models.Model;
+import Models.PerformanceCounters;
+import Models.Shape;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * This is the panel the model's shapes are drawn on.
+ * The shapes are drawn into tiles which are kept and copied onto the panel whenever it is painted,
+ * so the shapes are only drawn again after the model changes rather than every time the window is repainted or resized.
+ * When the model reports which area changed, only the tiles in that area are drawn again.
+ * While a shape is being dragged out it is drawn over the buffer as a preview, so moving the mouse only repaints the area around it.
+ * Repaints are scheduled rather than done straight away, so that all the changes made within a frame are painted together.
+ * The panel shows the model through a viewport which can be zoomed and panned, so the shapes, the preview and the selection box
+ * are all in model coordinates and only the visible part of the model is ever drawn.
+ * A performance overlay can be shown over the canvas, in which case each frame is timed.
+ */
+public class CanvasPanel extends JPanel {
+
+	private static final long serialVersionUID = 1;
+	private Model model;
+	private final ShapeRenderer renderer = new ShapeRenderer();
+	//The preview has its own renderer, so the overlay's count of shapes drawn is only the model's shapes
+	private final ShapeRenderer previewRenderer = new ShapeRenderer();
+	private final TileCache tiles;
+	private final Viewport viewport = new Viewport();
+	private Rectangle selection;
+	private Shape preview;
+	private final RenderScheduler scheduler = new RenderScheduler(this::renderFrame);
+	private Rectangle pendingArea;
+	private boolean pendingAll = false;
+	private final PerformanceHud hud = new PerformanceHud(this);
+
+	/**
+	 * Constructor for the class.
+	 * @param model - the model whose shapes are drawn
+	 */
+	public CanvasPanel(Model model) {
+		this.model = model;
+		tiles = new TileCache(model, renderer);
+		setDoubleBuffered(true);
+	}
+
+	/**
+	 * Getter method for the model whose shapes are drawn.
+	 * @return the model
+	 */
+	public Model getModel() {
+		return model;
+	}
+
+	/**
+	 * Setter method for the model whose shapes are drawn, used when a model is loaded or synced.
+	 * @param model - the model whose shapes are drawn
+	 */
+	public void setModel(Model model) {
+		this.model = model;
+		tiles.setModel(model);
+		requestRepaint(null);
+	}
+
+	/**
+	 * This method is called when the model has changed, so that the tiles in the changed area are drawn again before they are next shown.
+	 * @param damage - the area that changed, or null if the whole canvas changed
+	 */
+	public void modelChanged(Rectangle damage) {
+		tiles.invalidate(damage);
+		if(damage == null)
+			requestRepaint(null);
+		else if(!damage.isEmpty())
+			repaintModelArea(damage);
+	}
+
+	/**
+	 * Getter method for the renderer the panel draws shapes with.
+	 * @return the panel's shape renderer
+	 */
+	public ShapeRenderer getRenderer() {
+		return renderer;
+	}
+
+	/**
+	 * Getter method for the viewport, which maps between canvas and model coordinates.
+	 * @return the panel's viewport
+	 */
+	public Viewport getViewport() {
+		return viewport;
+	}
+
+	/**
+	 * This method zooms the canvas in or out around a point on it.
+	 * @param factor - how much to multiply the zoom by, more than 1 to zoom in
+	 * @param x - the canvas x coordinate to zoom around
+	 * @param y - the canvas y coordinate to zoom around
+	 */
+	public void zoom(double factor, int x, int y) {
+		viewport.zoom(factor, x, y);
+		requestRepaint(null);
+	}
+
+	/**
+	 * This method pans the canvas, which only moves the tiles that are already drawn.
+	 * @param dx - how many pixels to move the drawing right by
+	 * @param dy - how many pixels to move the drawing down by
+	 */
+	public void pan(int dx, int dy) {
+		viewport.pan(dx, dy);
+		requestRepaint(null);
+	}
+
+	/**
+	 * This method goes back to showing the model at its actual size from its top left corner.
+	 */
+	public void resetView() {
+		viewport.reset();
+		requestRepaint(null);
+	}
+
+	/**
+	 * Getter method for the tiles the shapes are drawn into.
+	 * @return the panel's tile cache
+	 */
+	public TileCache getTiles() {
+		return tiles;
+	}
+
+	/**
+	 * Setter method for the box drawn around the selected shape.
+	 * @param selection - the box to draw in model coordinates, or null if no shape is selected
+	 */
+	public void setSelection(Rectangle selection) {
+		if(this.selection != null)
+			repaintModelArea(this.selection);
+		this.selection = selection == null ? null : new Rectangle(selection);
+		if(selection != null)
+			repaintModelArea(selection);
+	}
+
+	/**
+	 * Setter method for the shape being dragged out, which is drawn over the other shapes until it is added to the model.
+	 * Only the area covered by the previous and new preview is repainted.
+	 * @param preview - the shape being drawn, or null when the mouse is released
+	 */
+	public void setPreview(Shape preview) {
+		Rectangle area = null;
+		if(this.preview != null)
+			area = Geometry.bounds(this.preview);
+		if(preview != null) {
+			if(area == null)
+				area = Geometry.bounds(preview);
+			else
+				area.add(Geometry.bounds(preview));
+		}
+		this.preview = preview;
+		if(area != null)
+			repaintModelArea(area);
+	}
+
+	/**
+	 * This method asks for the part of the panel showing an area of the model to be repainted in the next frame.
+	 * @param area - the area of the model
+	 */
+	private void repaintModelArea(Rectangle area) {
+		Rectangle view = viewport.toView(area);
+		view.grow(1, 1);
+		requestRepaint(view);
+	}
+
+	/**
+	 * This method asks for an area of the panel to be repainted in the next frame, together with anything else that changes before then.
+	 * It can be called from any thread.
+	 * @param area - the area to repaint, or null to repaint the whole panel
+	 */
+	public void requestRepaint(Rectangle area) {
+		synchronized (scheduler) {
+			if(area == null)
+				pendingAll = true;
+			else if(pendingArea == null)
+				pendingArea = new Rectangle(area);
+			else
+				pendingArea.add(area);
+		}
+		scheduler.requestFrame();
+	}
+
+	/**
+	 * Getter method for the scheduler which paints the panel, which counts the frames requested and rendered.
+	 * @return the panel's render scheduler
+	 */
+	public RenderScheduler getScheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * This method is run by the scheduler once per frame and paints everything that was asked to be repainted since the last frame.
+	 */
+	private void renderFrame() {
+		Rectangle area;
+		synchronized (scheduler) {
+			area = pendingAll ? new Rectangle(0, 0, getWidth(), getHeight()) : pendingArea;
+			pendingAll = false;
+			pendingArea = null;
+		}
+		if(area == null || area.isEmpty())
+			return;
+		if(hud.isVisible()) {
+			long drawn = shapesDrawn(), culled = PerformanceCounters.shapesCulled.sum();
+			long start = System.nanoTime();
+			paintImmediately(area);
+			hud.frameRendered(System.nanoTime() - start, shapesDrawn() - drawn, PerformanceCounters.shapesCulled.sum() - culled);
+		} else {
+			paintImmediately(area);
+		}
+	}
+
+	/**
+	 * This method counts the shapes the renderer has drawn at any level of detail.
+	 */
+	private long shapesDrawn() {
+		return renderer.getDrawnFull() + renderer.getDrawnSimplified() + renderer.getDrawnAsPixels();
+	}
+
+	/**
+	 * Getter method for the performance overlay shown over the canvas.
+	 * @return the canvas' performance overlay
+	 */
+	public PerformanceHud getHud() {
+		return hud;
+	}
+
+	/**
+	 * This method paints the panel's background and then copies the tiles in the area being painted onto it, drawing any that changed first.
+	 * @param g - the panel's graphics
+	 */
+	@Override
+	protected void paintComponent(Graphics g) {
+		super.paintComponent(g);
+
+		Rectangle area = g.getClipBounds();
+		if(area == null)
+			area = new Rectangle(0, 0, getWidth(), getHeight());
+		tiles.paint(g, area, viewport);
+
+		if(preview != null) {
+			Graphics2D previewGraphics = (Graphics2D) g.create();
+			previewGraphics.transform(viewport.getTransform());
+			previewRenderer.draw(previewGraphics, preview);
+			previewGraphics.dispose();
+		}
+
+		//The selection box is drawn one pixel wide however far the canvas is zoomed
+		if(selection != null) {
+			g.setColor(Color.gray);
+			((Graphics2D) g).draw(viewport.toView(selection));
+		}
+
+		hud.paint(g);
+	}
+}
@@ -1,8 +1,18 @@
 package Views;
 
 import Controller.Controller;
+import Models.Circle;
+import Models.Ellipse;
+import Models.Geometry;
+import Models.Hexagon;
+import Models.Line;
 import Models.Model;
+import Models.Octagon;
+import Models.Parallelogram;
 import Models.Shape;
+import Models.ShapeTypes;
+import Models.Square;
+import Models.Triangle;
 
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
@@ -11,12 +21,13 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.filechooser.FileSystemView;
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.geom.Path2D;
 import java.io.File;
 import java.io.IOException;
 import java.util.Hashtable;
 import java.util.Observable;
 import java.util.Observer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 
 /**
@@ -36,18 +47,23 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 	private JFileChooser jfc;
 	private JMenuBar menu;
 	private JLabel currentTool, currentColor, currentPartner;
-	private JPanel canvas;
+	private CanvasPanel canvas;
 	private JMenu file, edit, draw, networking;
-	private JMenuItem save, saveas, load, close, sync, connect, undo, redo, clear, color, line, backgroundcolor, circle, ellipse, hexagon, octagon, parallelogram, rectangle, square, triangle;
+	private JMenuItem save, saveas, load, exportpng, exportsvg, close, sync, connect, undo, redo, clear, color, line, backgroundcolor, circle, ellipse, hexagon, octagon, parallelogram, rectangle, square, triangle;
 	private JSlider slider;
 	private Rectangle boundingBox;
 
 	//Internal attributes
 	private Color selectedColor;
 	private int selectedTool = -1, mouseStartX, mouseEndX, mouseStartY, mouseEndY, strokeWidth = 2;
+	//Where the mouse last was on the canvas while panning with the right or middle button, in canvas pixels
+	private int panX, panY;
+	private boolean panning = false;
 	private Shape selectedShape, previousShape, drawingShape;
 	private boolean fillShape = false, shiftPressed = false, equilateral = true, undoPressed = false, chosenSaveFile = false;
 	private File saveFile;
+	//Previews of saved canvases in the load dialog, kept between loads
+	private final ThumbnailCache thumbnails = new ThumbnailCache();
 
 	//////////////////////// Setup Methods ////////////////////////
 
@@ -80,7 +96,7 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 
 		 slider = new JSlider(JSlider.HORIZONTAL, 0, 20, 2);
 
-		 canvas = new JPanel();
+		 canvas = new CanvasPanel(model);
 
 		 jtb1 = new JToolBar("Drawing Tools", JToolBar.VERTICAL);
 		 jtb2 = new JToolBar("Control Tools", JToolBar.HORIZONTAL);
@@ -116,8 +132,10 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 		});
 
 		setVisible(true);
-		revalidate();
-		paintAll(getGraphics());
+
+		//Drawings saved before there was a canvas panel were drawn on the window, so their shapes are moved by where the canvas is in it when loaded
+		Point origin = SwingUtilities.convertPoint(canvas, 0, 0, this);
+		Model.setLegacyOrigin(origin.x, origin.y);
 
 		//Detects key pressed and mouse movements
 		detectKeyPress();
@@ -137,6 +155,14 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 
 			@Override
 			public void keyPressed(KeyEvent e) {
+				//Ctrl+0 goes back to the actual size and the top left of the drawing
+				if(e.isControlDown() && e.getKeyCode() == KeyEvent.VK_0) {
+					canvas.resetView();
+				}
+				//F3 shows or hides the performance overlay
+				if(e.getKeyCode() == KeyEvent.VK_F3) {
+					canvas.getHud().setVisible(!canvas.getHud().isVisible());
+				}
 				//If the key pressed is the shift button, the currently selected tool is checked
 				if(e.isShiftDown()) {
 					shiftPressed = true;
@@ -191,15 +217,18 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 	private void monitorMouse() {
 		canvas.setFocusable(true);
 		canvas.grabFocus();
-		addMouseListener(new MouseListener() {
+		canvas.addMouseListener(new MouseListener() {
 
 			//If the mouse is clicked on the canvas, the clicked place becomes the end coordinates for the mouse and the start coordinates become the previous end coordinates
 			@Override
 			public void mouseClicked(MouseEvent e) {
+				//The right and middle buttons are only used for panning
+				if(!SwingUtilities.isLeftMouseButton(e))
+					return;
 				mouseStartX = mouseEndX;
 				mouseStartY = mouseEndY;
-				mouseEndX = e.getX();
-				mouseEndY = e.getY();
+				mouseEndX = modelX(e);
+				mouseEndY = modelY(e);
 
 				//If no tool is selected and the user has clicked, it's checked whether they have selected a shape
 				if(selectedTool == -1) {
@@ -209,10 +238,8 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 					}
 					else {
 						//If a shape is already selected and the user clicks on the same shape again, it is deselected
-						if(selectShape(mouseEndX, mouseEndY)!=null && selectShape(mouseEndX, mouseEndY).equalColor(selectedShape)&&selectShape(mouseEndX, mouseEndY).equalStroke(selectedShape)&&selectShape(mouseEndX, mouseEndY).equalPosition(selectedShape)&&selectShape(mouseEndX, mouseEndY).equalSize(selectedShape)) {
-							canvas.paintAll(getGraphics());
-							revalidate();
-							paintAll(getGraphics());
+						Shape clicked = selectShape(mouseEndX, mouseEndY);
+						if(clicked != null && clicked.getId() == selectedShape.getId()) {
 							selectedShape = null;
 							redraw();
 							delete.setVisible(false);
@@ -228,22 +255,30 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 				}
 			}
 
-			//If the mouse is pressed, that location becomes the mouse's new start position
+			//If the mouse is pressed, that location becomes the mouse's new start position, unless the right or middle button starts panning
 			@Override
 			public void mousePressed(MouseEvent e) {
-				mouseStartX = e.getX();
-				mouseStartY = e.getY();
+				if(!SwingUtilities.isLeftMouseButton(e)) {
+					panning = true;
+					panX = e.getX();
+					panY = e.getY();
+					return;
+				}
+				mouseStartX = modelX(e);
+				mouseStartY = modelY(e);
 			}
 
 			@Override
 			public void mouseReleased(MouseEvent e) {
+				if(panning) {
+					panning = false;
+					return;
+				}
 				//If the mouse is released, the canvas is refreshed
-				mouseEndX = e.getX();
-				mouseEndY = e.getY();
+				mouseEndX = modelX(e);
+				mouseEndY = modelY(e);
 				drawingShape = null;
-				canvas.paintAll(getGraphics());
-				revalidate();
-				paintAll(getGraphics());
+				canvas.setPreview(null);
 				redraw();
 
 				//If the undo button was just pressed, and a new action was taken, this is considered a new path that deviates from the previous undo-redo tree
@@ -281,26 +316,52 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 			}
 		});
 
-		addMouseMotionListener(new MouseMotionListener() {
+		canvas.addMouseMotionListener(new MouseMotionListener() {
 
-			//When the mouse is dragged, it's coordinates are updated and the canvas is redrawn
+			//When the mouse is dragged, it's coordinates are updated and the shape being drawn is previewed over the canvas
 			@Override
 			public void mouseDragged(MouseEvent e) {
-				mouseEndX = e.getX();
-				mouseEndY = e.getY();
-
-				if (selectedTool != 1 && selectedTool != 6 && selectedTool != 7 && selectedTool !=8){
-					redraw();
+				if(panning) {
+					canvas.pan(e.getX() - panX, e.getY() - panY);
+					panX = e.getX();
+					panY = e.getY();
+					return;
 				}
+				mouseEndX = modelX(e);
+				mouseEndY = modelY(e);
+
+				drawingShape = previewShape(mouseStartX, mouseEndX, mouseStartY, mouseEndY);
+				canvas.setPreview(drawingShape);
 			}
 
 			//When the mouse moves it's tracked
 			@Override
 			public void mouseMoved(MouseEvent e) {
-				mouseStartX = e.getX();
-				mouseStartY = e.getY();
+				mouseStartX = modelX(e);
+				mouseStartY = modelY(e);
 			}
 		});
+
+		//Turning the mouse wheel zooms in or out around the mouse
+		canvas.addMouseWheelListener(e -> canvas.zoom(Math.pow(1.1, -e.getPreciseWheelRotation()), e.getX(), e.getY()));
+	}
+
+	/**
+	 * This method maps the mouse's x coordinate on the canvas to the model, through the canvas' zoom and pan.
+	 * @param e - the mouse event
+	 * @return the model x coordinate
+	 */
+	private int modelX(MouseEvent e) {
+		return canvas.getViewport().toModelX(e.getX());
+	}
+
+	/**
+	 * This method maps the mouse's y coordinate on the canvas to the model, through the canvas' zoom and pan.
+	 * @param e - the mouse event
+	 * @return the model y coordinate
+	 */
+	private int modelY(MouseEvent e) {
+		return canvas.getViewport().toModelY(e.getY());
 	}
 
 	/**
@@ -414,13 +475,9 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 		//The canvas' default color is white
 		canvas.setBackground(Color.WHITE);
 
-		//This ensures that if the window is resized, all the components are redrawn on the canvas
+		//This deselects the selected shape if the window is resized, the canvas repaints itself by copying its cached tiles
 		canvas.addComponentListener(new ComponentAdapter() {
 			public void componentResized(ComponentEvent componentEvent) {
-				getGraphics().setClip(canvas.getX(), canvas.getY(), canvas.getWidth(), canvas.getHeight());
-				canvas.paintAll(getGraphics());
-				revalidate();
-				paintAll(getGraphics());
 				selectedShape = null;
 				redraw();
 			}
@@ -441,6 +498,8 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 		 save = new JMenuItem ("Save");
 		 saveas = new JMenuItem("Save As");
 		 load = new JMenuItem ("Load");
+		 exportpng = new JMenuItem("Export PNG");
+		 exportsvg = new JMenuItem("Export SVG");
 		 close = new JMenuItem ("Close");
 		 backgroundcolor = new JMenuItem("Change Background Color");
 
@@ -474,6 +533,8 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 		file.add (save);
 		file.add(saveas);
 		file.add (load);
+		file.add(exportpng);
+		file.add(exportsvg);
 		file.add (close);
 		file.add(backgroundcolor);
 
@@ -515,6 +576,8 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 		save.addActionListener(al);
 		saveas.addActionListener(al);
 		load.addActionListener(al);
+		exportpng.addActionListener(al);
+		exportsvg.addActionListener(al);
 		close.addActionListener(al);
 		undo.addActionListener(al);
 		redo.addActionListener(al);
@@ -575,34 +638,37 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 		});
 	}
 
-
-	/**
-	 * Getter function for the frame's graphics
-	 * @return the frame's graphics
-	 */
-	@Override
-	public Graphics getGraphics() {
-		return super.getGraphics();
-	}
-
 	/**
-	 * This method is called when the observed object (the model) is updated. The canvas is then redrawn.
+	 * This method is called when the observed object (the model) is updated. The area of the canvas that changed is then redrawn
+	 * in the canvas' next frame, together with any other changes made before then.
 	 * @param o - the observable object
-	 * @param arg - any arguments passed
+	 * @param arg - the area of the canvas that changed, or null if all of it changed
 	 */
 	@Override
 	public void update(Observable o, Object arg) {
+		canvas.modelChanged((Rectangle) arg);
 		redraw();
 	}
 
 	/**
-	 * This method iterates over the shapes in the model and draws them on the canvas.
+	 * This method refreshes the canvas after a change, removing the selection box if no shape is selected.
+	 * The canvas schedules repaints for the model's changes, the selection box and the preview itself, so nothing else is repainted here.
 	 */
 	private void redraw(){
 		canvas.grabFocus();
-		for (Shape n : model.getShapes()) {
-			createShape(n);
-		}
+		if(selectedShape == null)
+			canvas.setSelection(null);
+	}
+
+	/**
+	 * This method switches the view to a different model, when one is loaded or synced.
+	 * @param m - the new model
+	 */
+	private void setModel(Model m){
+		model.deleteObserver(this);
+		model = m;
+		model.addObserver(this);
+		canvas.setModel(model);
 	}
 
 	//////////////////////// Editing Methods ////////////////////////
@@ -616,28 +682,22 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 	private Shape selectShape(int mx, int my){
 		Shape s = null;
 		try{
-			s = new Shape (controller.selectShape(mx, my));
+			s = ShapeTypes.copy(controller.selectShape(mx, my));
 		} catch(NullPointerException ignored){
 
 		}
 
 		//If a shape has been selected, a bounding box is drawn around it and the delete button is set to visible
 		if(s != null) {
-			if(s.getShapeType().equals("Line"))
-				boundingBox.setRect(s.getStartX()-10, s.getStartY()-10, Math.abs(s.getStartX()-s.getEndX())+20, Math.abs(s.getStartY()-s.getEndY())+20);
-			else if (s.getShapeType().equals("Parallelogram"))
-				boundingBox.setRect(Math.min(s.getEndX(), s.getStartX())-10, Math.min(s.getStartY(), s.getEndY())-10, Math.abs(s.getStartX()-s.getEndX())+200, Math.abs(s.getStartY()-s.getEndY())+20);
-			else
-				boundingBox.setRect(Math.min(s.getEndX(), s.getStartX())-10, Math.min(s.getStartY(), s.getEndY())-10, Math.abs(s.getStartX()-s.getEndX())+20, Math.abs(s.getStartY()-s.getEndY())+20);
-			Graphics2D g = (Graphics2D) getGraphics();
-			g.setColor(Color.gray);
-			g.draw(boundingBox);
+			boundingBox.setBounds(Geometry.bounds(s));
+			boundingBox.grow(5, 5);
+			canvas.setSelection(boundingBox);
 			delete.setVisible(true);
 		}
 		//If no shape is selected, the bounding box is deleted and the delete button is set to invisible
 		else {
 			delete.setVisible(false);
-			getGraphics().dispose();
+			canvas.setSelection(null);
 		}
 
 		return s;
@@ -650,14 +710,11 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 		int width, height;
 		width = Math.abs(selectedShape.getStartX() - selectedShape.getEndX());
 		height = Math.abs(selectedShape.getStartY() - selectedShape.getEndY());
-		previousShape = new Shape(selectedShape);
+		previousShape = ShapeTypes.copy(selectedShape);
 		selectedShape.setStartX(mouseEndX);
 		selectedShape.setStartY(mouseEndY);
 		selectedShape.setEndX(mouseEndX+width);
 		selectedShape.setEndY(mouseEndY+height);
-		canvas.paintAll(getGraphics());
-		revalidate();
-		paintAll(getGraphics());
 		controller.updateModel(selectedShape, previousShape, 1);
 		selectedShape = null;
 		redraw();
@@ -668,12 +725,9 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 	 */
 	private void changeShapeSize(){
 		if(shiftPressed) {
-			previousShape = new Shape(selectedShape);
+			previousShape = ShapeTypes.copy(selectedShape);
 			selectedShape.setEndX(mouseEndX);
 			selectedShape.setEndY(mouseEndY);
-			canvas.paintAll(getGraphics());
-			revalidate();
-			paintAll(getGraphics());
 			controller.updateModel(selectedShape, previousShape, 2);
 			selectedShape = null;
 			redraw();
@@ -688,11 +742,8 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 			public void run() {
 				strokeWidth = slider.getValue();
 				if(selectedTool == -1 && selectedShape != null){
-					previousShape = new Shape(selectedShape);
+					previousShape = ShapeTypes.copy(selectedShape);
 					selectedShape.setStrokeWidth(strokeWidth);
-					canvas.paintAll(getGraphics());
-					revalidate();
-					paintAll(getGraphics());
 					controller.updateModel(selectedShape, previousShape, 3);
 					selectedShape = null;
 					redraw();
@@ -706,21 +757,15 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 	 */
 	private void changeShapeFill(int fill) {
 		if(fill == 0) {
-			previousShape = new Shape(selectedShape);
+			previousShape = ShapeTypes.copy(selectedShape);
 			selectedShape.setStrokeColor(selectedColor);
 			selectedShape.setFillColor(null);
-			canvas.paintAll(getGraphics());
-			revalidate();
-			paintAll(getGraphics());
 			controller.updateModel(selectedShape, previousShape, 0);
 			selectedShape = null;
 			redraw();
 		} else if (fill == 1) {
-			previousShape = new Shape(selectedShape);
+			previousShape = ShapeTypes.copy(selectedShape);
 			selectedShape.setFillColor(selectedColor);
-			canvas.paintAll(getGraphics());
-			revalidate();
-			paintAll(getGraphics());
 			controller.updateModel(selectedShape, previousShape, 0);
 			selectedShape = null;
 			redraw();
@@ -732,16 +777,13 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 	 */
 	private void changeShapeColor(Color color){
 
-		previousShape = new Shape(selectedShape);
+		previousShape = ShapeTypes.copy(selectedShape);
 
 		if(selectedShape.getFillColor() == null) {
 			selectedShape.setStrokeColor(color);
 		} else {
 			selectedShape.setFillColor(color);
 		}
-		canvas.paintAll(getGraphics());
-		revalidate();
-		paintAll(getGraphics());
 		controller.updateModel(selectedShape, previousShape, 0);
 		selectedShape = null;
 		delete.setVisible(false);
@@ -773,6 +815,94 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 		}
 	}
 
+	/**
+	 * This method exports the canvas as a PNG image, at a scale the user chooses, covering every shape in the model.
+	 * The image is drawn and written a strip at a time, so it can be much bigger than would fit in memory.
+	 */
+	private void exportCanvas(){
+		String answer = JOptionPane.showInputDialog(this, "Export scale (1 is actual size):", "1");
+		if(answer == null)
+			return;
+		double scale;
+		try {
+			scale = Double.parseDouble(answer);
+		} catch(NumberFormatException ex) {
+			JOptionPane.showMessageDialog(this, "The scale has to be a number.");
+			return;
+		}
+		if(scale <= 0)
+			return;
+
+		JFileChooser jfc = new JFileChooser(FileSystemView.getFileSystemView().getHomeDirectory());
+		jfc.setDialogTitle("Choose where to export the PNG: ");
+		jfc.setFileSelectionMode(JFileChooser.FILES_ONLY);
+		jfc.setFileFilter(new FileNameExtensionFilter("PNG Files", "png", "PNG"));
+
+		if (jfc.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+			File file = jfc.getSelectedFile();
+			if(!file.getName().toLowerCase().endsWith(".png"))
+				file = new File(file.getPath() + ".png");
+			final File png = file;
+			Model snapshot = model.snapshot();
+			Color background = canvas.getBackground();
+			export("PNG", () -> {
+				new PngExporter(canvas.getRenderer()).export(snapshot, ShapeRenderer.extent(snapshot), scale, background, png);
+				return null;
+			});
+		}
+	}
+
+	/**
+	 * This method asks where to save the drawing as an SVG file and exports it there, so it can be opened in other drawing tools.
+	 */
+	private void exportSvg(){
+		JFileChooser jfc = new JFileChooser(FileSystemView.getFileSystemView().getHomeDirectory());
+		jfc.setDialogTitle("Choose where to export the SVG: ");
+		jfc.setFileSelectionMode(JFileChooser.FILES_ONLY);
+		jfc.setFileFilter(new FileNameExtensionFilter("SVG Files", "svg", "SVG"));
+
+		if (jfc.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+			File file = jfc.getSelectedFile();
+			if(!file.getName().toLowerCase().endsWith(".svg"))
+				file = new File(file.getPath() + ".svg");
+			final File svg = file;
+			Model snapshot = model.snapshot();
+			Color background = canvas.getBackground();
+			export("SVG", () -> {
+				new SvgExporter().export(snapshot, background, svg);
+				return null;
+			});
+		}
+	}
+
+	/**
+	 * This method runs an export on a background thread so the window keeps responding while a large export is written,
+	 * and tells the user if it failed once it has finished.
+	 * @param format - the name of the format being exported, for the error message
+	 * @param export - the export to run
+	 */
+	private void export(String format, Callable<Void> export) {
+		setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+		new SwingWorker<Void, Void>() {
+			@Override
+			protected Void doInBackground() throws Exception {
+				return export.call();
+			}
+
+			@Override
+			protected void done() {
+				setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
+				try {
+					get();
+				} catch (ExecutionException ex) {
+					JOptionPane.showMessageDialog(MainWindow.this, "The " + format + " couldn't be exported: " + ex.getCause().getMessage());
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}.execute();
+	}
+
 	/**
 	 * This method loads the canvas from a file.
 	 */
@@ -785,19 +915,14 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 		jfc.setAcceptAllFileFilterUsed(false);
 		FileNameExtensionFilter filter = new FileNameExtensionFilter("SER Files", "ser", "SER");
 		jfc.addChoosableFileFilter(filter);
+		new ThumbnailPreview(jfc, thumbnails);
 
 		int returnValue = jfc.showOpenDialog(null);
 
 		if (returnValue == JFileChooser.APPROVE_OPTION) {
-			model = controller.load(jfc.getSelectedFile());
+			setModel(controller.load(jfc.getSelectedFile()));
 		}
 
-		if(model == null)
-			model = new Model();
-
-		canvas.paintAll(getGraphics());
-		revalidate();
-		paintAll(getGraphics());
 		redraw();
 	}
 
@@ -805,7 +930,7 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 	 * This method checks the mode's undo and redo stacks to enable or disable the buttons accordingly
 	 */
 	private void checkUndoRedo(){
-		if(model.getActions().empty()){
+		if(!model.getHistory().canUndo()){
 			undo.setEnabled(false);
 			toolbarButtons[10].setEnabled(false);
 		} else {
@@ -890,173 +1015,6 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 
 	//////////////////////// Drawing Methods ////////////////////////
 
-	/**
-	 * This method sets the point of an n sided polygon and is also used to create hexagons and octagons
-	 * @param polygon - the polygon to add points to
-	 * @param n - the shape who's coordinates should be used
-	 * @param numberOfSides - the desired number of sides in the polygon
-	 */
-	private void setupPolygon(Polygon polygon, Shape n, int numberOfSides){
-		//How to draw a polygon obtained from:
-		//https://stackoverflow.com/questions/35853902/drawing-hexagon-using-java-error
-		for (int i = 0; i < numberOfSides; i++) {
-			int xval = (int) (n.getStartX()+((n.getEndX()-n.getStartX())/2) + (n.getEndX()-n.getStartX())/2
-					* Math.cos(i * 2 * Math.PI / numberOfSides));
-			int yval = (int) (n.getStartY()+((n.getEndY()-n.getStartY())/2) + (n.getEndY()-n.getStartY())/2
-					* Math.sin(i * 2 * Math.PI / numberOfSides));
-			polygon.addPoint(xval, yval);
-		}
-	}
-
-	/**
-	 * This method draws the given shape.
-	 * @param n - the shape to be drawn
-	 */
-	private void createShape(Shape n){
-
-		//Set shape fill or stroke color
-		Graphics2D g = (Graphics2D) getGraphics();
-		if(n.getFillColor() == null)
-			g.setColor(n.getStrokeColor());
-		else
-			g.setColor(n.getFillColor());
-
-		//Set shape stroke width
-		g.setStroke(new BasicStroke(n.getStrokeWidth()));
-
-		//This finds the minimum and maximum x and y coordinates of the shape
-		//because the starting coordinates might not necessarily be smaller than the ending ones
-		//if the user draws from right to left or top to bottom
-		int minX = Math.min(n.getStartX(), n.getEndX());
-		int minY = Math.min(n.getStartY(), n.getEndY());
-		int maxX = Math.max(n.getStartX(), n.getEndX());
-		int maxY = Math.max(n.getStartY(), n.getEndY());
-
-		Polygon polygon;
-
-		//This draws the appropriate graphics based on the shape type
-		switch(n.getShapeType()){
-			case "Circle":
-				if(n.getFillColor() == null){
-					g.drawOval(minX, minY, maxX - minX, maxX - minX);
-				} else {
-					g.drawOval(minX, minY, maxX - minX, maxX - minX);
-				}
-				break;
-			case "Ellipse":
-				if(n.getFillColor() == null){
-					g.drawOval(minX, minY, maxX - minX, maxY - minY);
-				} else {
-					g.drawOval(minX, minY, maxX - minX, maxY - minY);
-				}
-				break;
-			case "Hexagon":
-				polygon = new Polygon();
-
-				setupPolygon(polygon, n, 6);
-
-				if(n.getFillColor() == null){
-					g.drawPolygon(polygon);
-				} else {
-					g.fillPolygon(polygon);
-				}
-
-				break;
-			case "Line":
-				g.drawLine(n.getStartX(), n.getEndX(), n.getStartY(), n.getEndY());
-				break;
-			case "Octagon":
-				polygon = new Polygon();
-
-				setupPolygon(polygon, n, 8);
-
-				if(n.getFillColor() == null){
-					g.drawPolygon(polygon);
-				} else {
-					g.fillPolygon(polygon);
-				}
-
-				break;
-			case "Parallelogram":
-				//How to draw a parallelogram obtained from:
-				//https://stackoverflow.com/questions/28017537/how-do-you-draw-and-fill-a-parallelogram-in-java-swing
-
-				Path2D.Double parallelogram;
-				parallelogram = new Path2D.Double();
-				if(n.getStartX() > n.getEndX()) {
-					parallelogram.moveTo(n.getEndX(),n.getEndY());
-					parallelogram.lineTo(n.getStartX(),n.getEndY());
-					parallelogram.lineTo(n.getStartX()+(Math.abs(n.getEndX()-n.getStartX())),n.getStartY());
-					parallelogram.lineTo(n.getStartX(),n.getStartY());
-					parallelogram.lineTo(n.getEndX(),n.getEndY());
-				} else {
-					parallelogram.moveTo(n.getStartX(),n.getStartY());
-					parallelogram.lineTo(n.getEndX(),n.getStartY());
-					parallelogram.lineTo(n.getEndX()+(Math.abs(n.getEndX()-n.getStartX())),n.getEndY());
-					parallelogram.lineTo(n.getEndX(),n.getEndY());
-					parallelogram.lineTo(n.getStartX(),n.getStartY());
-				}
-
-				if(n.getFillColor() == null){
-					g.draw(parallelogram);
-				} else {
-					g.fill(parallelogram);
-				}
-
-				break;
-			case "Rectangle":
-				if(n.getFillColor() == null){
-					g.drawRect(minX, minY, maxX - minX, maxY - minY);
-				} else {
-					g.fillRect(minX, minY, maxX - minX, maxY - minY);
-				}
-				break;
-			case "Square":
-				if(n.getFillColor() == null){
-					g.drawRect(minX, minY, maxX - minX, maxX - minX);
-				} else {
-					g.fillRect(minX, minY, maxX - minX, maxX - minX);
-				}
-				break;
-			case "Triangle":
-				if(equilateral) {
-					//Equilateral triangle, obtained from:
-					//https://stackoverflow.com/questions/29447994/how-do-i-draw-a-triangle-in-java
-					if(n.getFillColor() == null){
-						g.drawPolygon(new Polygon(new int[] {n.getStartX(), n.getStartX()+((n.getEndX()-n.getStartX())/2), n.getEndX()}, new int[] {n.getStartY(), n.getEndY(), n.getStartY()}, 3));
-					} else {
-						g.fillPolygon(new Polygon(new int[] {n.getStartX(), n.getStartX()+((n.getEndX()-n.getStartX())/2), n.getEndX()}, new int[] {n.getStartY(), n.getEndY(), n.getStartY()}, 3));
-					}
-				} else {
-					//Free-form triangle, adapted from the 'how to draw a parallelogram' source through experimentation
-					Path2D.Double triangle;
-					triangle = new Path2D.Double();
-					triangle.moveTo(mouseStartX,mouseStartY);
-					triangle.lineTo(mouseEndX,mouseStartY);
-					triangle.lineTo(mouseEndX,mouseEndY);
-					triangle.closePath();
-					if(n.getFillColor() == null){
-						g.draw(triangle);
-					} else {
-						g.fill(triangle);
-					}
-				}
-				break;
-			case "Polygon":
-				polygon = new Polygon();
-				setupPolygon(polygon, n, ((Models.Polygon) n).getNumberOfSides());
-
-				if(n.getFillColor() == null){
-					g.drawPolygon(polygon);
-				} else {
-					g.fillPolygon(polygon);
-				}
-				break;
-			default:
-				break;
-		}
-	}
-
 	/**
 	 * This method either calls the needed controller method to create the appropriate shape based on the selected tool.
 	 * Or just creates a shape to be displayed as the user is dragging out to draw (and then removed afterwards)
@@ -1113,6 +1071,45 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 		}
 	}
 
+	/**
+	 * This method creates the shape the selected tool would draw between the given coordinates without adding it to the model,
+	 * so that it can be previewed while the mouse is dragged.
+	 * @param sX - the start x coordinate
+	 * @param eX - the end x coordinate
+	 * @param sY - the start y coordinate
+	 * @param eY - the end y coordinate
+	 * @return the shape, or null if no drawing tool is selected
+	 */
+	private Shape previewShape(int sX, int eX, int sY, int eY) {
+		Color fillColor = fillShape ? controller.getSelectedColor() : null;
+		Color strokeColor = fillShape ? null : controller.getSelectedColor();
+		switch (selectedTool){
+			//Lines are passed to the controller the same way drawShape passes them
+			case 0:
+				return new Line(sX, eX, sY, eY, strokeWidth, fillColor, strokeColor, "Line");
+			case 1:
+				return new Triangle(sX, sY, eX, eY, strokeWidth, fillColor, strokeColor, equilateral, "Triangle");
+			case 2:
+				return new Square(sX, sY, eX, eY, strokeWidth, fillColor, strokeColor, "Square");
+			case 3:
+				return new Models.Rectangle(sX, sY, eX, eY, strokeWidth, fillColor, strokeColor, "Rectangle");
+			case 4:
+				return new Circle(sX, sY, eX, eY, strokeWidth, fillColor, strokeColor, "Circle");
+			case 5:
+				return new Ellipse(sX, sY, eX, eY, strokeWidth, fillColor, strokeColor, "Ellipse");
+			case 6:
+				return new Hexagon(sX, sY, eX, eY, strokeWidth, fillColor, strokeColor, "Hexagon");
+			case 7:
+				return new Octagon(sX, sY, eX, eY, strokeWidth, fillColor, strokeColor, "Octagon");
+			case 8:
+				return new Parallelogram(sX, sY, eX, eY, strokeWidth, fillColor, strokeColor, "Parallelogram");
+			case 9:
+				return new Models.Polygon(sX, sY, eX, eY, strokeWidth, fillColor, strokeColor, (Integer)jcb.getSelectedItem(), "Polygon");
+			default:
+				return null;
+		}
+	}
+
 	/**
 	 * This method is called whenever a button is clicked.
 	 * @param e - the action event
@@ -1224,14 +1221,11 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 			controller.undo();
 
 			//If there are no more actions left to undo, the undo button is disabled
-			if(model.getActions().empty()) {
+			if(!model.getHistory().canUndo()) {
 				toolbarButtons[11].setEnabled(true);
 				redo.setEnabled(true);
 				undoPressed = true;
 			}
-			canvas.paintAll(getGraphics());
-			revalidate();
-			paintAll(getGraphics());
 			redraw();
 		}
 
@@ -1244,9 +1238,6 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 				redo.setEnabled(false);
 				toolbarButtons[11].setEnabled(false);
 			}
-			canvas.paintAll(getGraphics());
-			revalidate();
-			paintAll(getGraphics());
 			redraw();
 		}
 
@@ -1257,7 +1248,7 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 				undo.setEnabled(false);
 				redo.setEnabled(false);
 				delete.setVisible(false);
-				canvas.repaint();
+				canvas.requestRepaint(null);
 			}
 		}
 
@@ -1296,6 +1287,14 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 			loadCanvas();
 		}
 
+		//Export PNG button pressed (menu only)
+		else if (e.getSource() == exportpng) {
+			exportCanvas();
+		}
+		else if (e.getSource() == exportsvg) {
+			exportSvg();
+		}
+
 		//Polygon button pressed
 		else if (e.getSource() == polygon) {
 			currentTool.setText("Polygon Tool");
@@ -1306,13 +1305,10 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 
 		//Delete button pressed
 		else if (e.getSource() == delete){
-			canvas.paintAll(getGraphics());
-			revalidate();
 			controller.updateModel(selectedShape, null, 4);
 			controller.delete(selectedShape);
 			selectedShape = null;
 			delete.setVisible(false);
-			paintAll(getGraphics());
 			redraw();
 		}
 
@@ -1325,11 +1321,8 @@ public class MainWindow extends JFrame implements ActionListener, Observer {
 		else if (e.getSource() == sync || e.getSource() == toolbarButtons[15]) {
 			SwingUtilities.invokeLater(new Runnable() {
 				public void run() {
-					model = controller.sync();
+					setModel(controller.sync());
 					canvas.grabFocus();
-					canvas.paintAll(getGraphics());
-					revalidate();
-					paintAll(getGraphics());
 					redraw();
 				}
 			});
@@ -0,0 +1,150 @@
+package Views;
+
+import Models.History;
+import Models.PerformanceCounters;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * This class is an overlay in the corner of the canvas showing how quickly it is being drawn: frames per second, how long the last frame took,
+ * how many shapes it drew and how many the spatial index skipped, how often tiles, outlines and strokes were reused rather than made again,
+ * how long the model spent notifying the window of changes, and how much of the undo history is in memory and how much was moved to disk.
+ * While the overlay is hidden nothing is timed or counted beyond what the canvas always counts, and the overlay's numbers are only
+ * worked out twice a second while it's shown.
+ */
+public class PerformanceHud {
+
+	//How often the numbers are worked out again, in milliseconds
+	private static final int REFRESH_MILLIS = 500;
+	private static final int MARGIN = 8, PADDING = 6, LINE_HEIGHT = 15, WIDTH = 250;
+
+	private final CanvasPanel canvas;
+	private final Timer refresh;
+	private boolean visible = false;
+	private String[] lines = new String[0];
+
+	//What the last frame did, recorded by the canvas while the overlay is shown
+	private long lastFrameNanos, lastFrameDrawn, lastFrameCulled;
+	private long frames;
+
+	//The counts when the numbers were last worked out, to take the counts since then
+	private long sampleTime, sampleFrames, sampleTilesShown, sampleTilesRendered;
+
+	/**
+	 * Constructor for the class.
+	 * @param canvas - the canvas the overlay is shown on and whose drawing it measures
+	 */
+	public PerformanceHud(CanvasPanel canvas) {
+		this.canvas = canvas;
+		refresh = new Timer(REFRESH_MILLIS, e -> sample());
+	}
+
+	/**
+	 * Getter method for whether the overlay is shown.
+	 * @return true if it's shown
+	 */
+	public boolean isVisible() {
+		return visible;
+	}
+
+	/**
+	 * Setter method for whether the overlay is shown, which also turns counting on or off.
+	 * @param visible - true to show the overlay
+	 */
+	public void setVisible(boolean visible) {
+		if(this.visible == visible)
+			return;
+		this.visible = visible;
+		PerformanceCounters.setEnabled(visible);
+		if(visible) {
+			frames = 0;
+			sampleTime = System.nanoTime();
+			sampleFrames = 0;
+			sampleTilesShown = canvas.getTiles().getTilesShown();
+			sampleTilesRendered = canvas.getTiles().getTilesRendered();
+			lines = new String[] { "Measuring..." };
+			refresh.start();
+		} else {
+			refresh.stop();
+		}
+		canvas.repaint(getBounds());
+	}
+
+	/**
+	 * This method records a frame the canvas rendered, which it only does while the overlay is shown.
+	 * @param nanos - how long the frame took
+	 * @param drawn - how many shapes were drawn in it
+	 * @param culled - how many shapes the spatial index left out of every tile drawn in it, each counted once
+	 */
+	void frameRendered(long nanos, long drawn, long culled) {
+		frames++;
+		lastFrameNanos = nanos;
+		lastFrameDrawn = drawn;
+		lastFrameCulled = culled;
+	}
+
+	/**
+	 * This method works out the numbers shown from the counts since they were last worked out, and repaints the overlay.
+	 */
+	private void sample() {
+		long now = System.nanoTime();
+		double seconds = Math.max(1e-9, (now - sampleTime) / 1e9);
+		TileCache tiles = canvas.getTiles();
+		long shown = tiles.getTilesShown() - sampleTilesShown, rendered = tiles.getTilesRendered() - sampleTilesRendered;
+		long notifications = PerformanceCounters.notifications.sumThenReset(), notifyNanos = PerformanceCounters.notifyNanos.sumThenReset();
+		History history = canvas.getModel().getHistory();
+
+		lines = new String[] {
+				String.format("%.1f fps", (frames - sampleFrames) / seconds),
+				String.format("Last frame: %.2f ms", lastFrameNanos / 1e6),
+				String.format("Shapes drawn: %d, culled: %d", lastFrameDrawn, lastFrameCulled),
+				"Tile hits: " + percent(shown - rendered, rendered),
+				"Outline hits: " + percent(PerformanceCounters.outlineHits.sumThenReset(), PerformanceCounters.outlineMisses.sumThenReset()),
+				"Stroke hits: " + percent(PerformanceCounters.strokeHits.sumThenReset(), PerformanceCounters.strokeMisses.sumThenReset()),
+				String.format("Notify: %d in %.2f ms", notifications, notifyNanos / 1e6),
+				String.format("History: %d, %d KB + %d KB on disk", history.size(), history.getMemoryBytes() / 1024, history.getSpilledBytes() / 1024)
+		};
+
+		sampleTime = now;
+		sampleFrames = frames;
+		sampleTilesShown = tiles.getTilesShown();
+		sampleTilesRendered = tiles.getTilesRendered();
+		canvas.repaint(getBounds());
+	}
+
+	/**
+	 * This method writes how often something was reused as a percentage.
+	 */
+	private static String percent(long hits, long misses) {
+		long total = hits + misses;
+		if(total == 0)
+			return "-";
+		return String.format("%.1f%% of %d", 100.0 * hits / total, total);
+	}
+
+	/**
+	 * This method works out the area of the canvas the overlay covers.
+	 * @return the overlay's area
+	 */
+	public Rectangle getBounds() {
+		return new Rectangle(MARGIN, MARGIN, WIDTH, Math.max(1, lines.length) * LINE_HEIGHT + 2 * PADDING);
+	}
+
+	/**
+	 * This method draws the overlay over the canvas, if it's shown.
+	 * @param g - the canvas' graphics, without the viewport's zoom
+	 */
+	public void paint(Graphics g) {
+		if(!visible)
+			return;
+		Rectangle bounds = getBounds();
+		g.setColor(new Color(0, 0, 0, 170));
+		g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+		g.setColor(Color.WHITE);
+		g.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+		for (int i = 0; i < lines.length; i++) {
+			g.drawString(lines[i], bounds.x + PADDING, bounds.y + PADDING + (i + 1) * LINE_HEIGHT - 3);
+		}
+	}
+}
@@ -0,0 +1,265 @@
+package Views;
+
+import Models.Model;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * This class exports a model as a PNG image too big to fit in memory, such as for printing.
+ * The image is drawn a strip of rows at a time and each strip is filtered, compressed and written out before the next is drawn,
+ * so only one strip is ever held in memory however big the image is. Each strip only draws the shapes the model's spatial index finds in it.
+ */
+public class PngExporter {
+
+	public static final int DEFAULT_STRIP_HEIGHT = 64;
+
+	private static final byte[] SIGNATURE = { (byte) 137, 'P', 'N', 'G', '\r', '\n', 26, '\n' };
+	//The most compressed data written in one IDAT chunk
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	private final ShapeRenderer renderer;
+	private int stripHeight = DEFAULT_STRIP_HEIGHT;
+
+	/**
+	 * Constructor for the class.
+	 * @param renderer - what draws the shapes into each strip
+	 */
+	public PngExporter(ShapeRenderer renderer) {
+		this.renderer = renderer;
+	}
+
+	/**
+	 * Setter method for how many rows are drawn at a time, which is what limits how much memory an export takes.
+	 * @param stripHeight - the number of rows in a strip
+	 */
+	public void setStripHeight(int stripHeight) {
+		this.stripHeight = Math.max(1, stripHeight);
+	}
+
+	/**
+	 * This method exports an area of a model to a PNG file.
+	 * @param model - the model to export
+	 * @param area - the area of the model to export
+	 * @param scale - how many pixels one model unit takes up in the image
+	 * @param background - the color behind the shapes, or null for a transparent background
+	 * @param file - the file to write
+	 * @throws IOException if the file can't be written
+	 */
+	public void export(Model model, Rectangle area, double scale, Color background, File file) throws IOException {
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), CHUNK_SIZE)) {
+			export(model, area, scale, background, out);
+		}
+	}
+
+	/**
+	 * This method exports an area of a model as a PNG image, written to a stream as it is drawn.
+	 * Images with a background are written without an alpha channel.
+	 * @param model - the model to export
+	 * @param area - the area of the model to export
+	 * @param scale - how many pixels one model unit takes up in the image
+	 * @param background - the color behind the shapes, or null for a transparent background
+	 * @param out - the stream to write the image to, which is left open
+	 * @throws IOException if the image can't be written
+	 */
+	public void export(Model model, Rectangle area, double scale, Color background, OutputStream out) throws IOException {
+		int width = (int) Math.ceil(area.width * scale), height = (int) Math.ceil(area.height * scale);
+		if(width <= 0 || height <= 0)
+			throw new IllegalArgumentException("Nothing to export in " + area);
+		int rows = Math.max(1, Math.min(stripHeight, Integer.MAX_VALUE / 4 / width));
+		boolean alpha = background == null || background.getAlpha() < 255;
+		int bytesPerPixel = alpha ? 4 : 3;
+
+		out.write(SIGNATURE);
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		DataOutputStream headerData = new DataOutputStream(header);
+		headerData.writeInt(width);
+		headerData.writeInt(height);
+		headerData.writeByte(8);
+		//Color type 6 is RGBA and 2 is RGB
+		headerData.writeByte(alpha ? 6 : 2);
+		headerData.writeByte(0);
+		headerData.writeByte(0);
+		headerData.writeByte(0);
+		writeChunk(out, "IHDR", header.toByteArray(), header.size());
+
+		BufferedImage strip = new BufferedImage(width, rows, BufferedImage.TYPE_INT_ARGB);
+		int[] pixels = ((DataBufferInt) strip.getRaster().getDataBuffer()).getData();
+		byte[] previous = new byte[width * bytesPerPixel], current = new byte[width * bytesPerPixel];
+		byte[][] filtered = new byte[5][width * bytesPerPixel];
+
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+		try {
+			DeflaterOutputStream compressed = new DeflaterOutputStream(new ChunkOutputStream(out), deflater, CHUNK_SIZE);
+			for (int top = 0; top < height; top += rows) {
+				int stripRows = Math.min(rows, height - top);
+				drawStrip(strip, model, area, scale, background, top);
+				for (int row = 0; row < stripRows; row++) {
+					toBytes(pixels, row * width, width, current, alpha);
+					int filter = filterRow(current, previous, bytesPerPixel, filtered);
+					compressed.write(filter);
+					compressed.write(filtered[filter]);
+					byte[] swap = previous;
+					previous = current;
+					current = swap;
+				}
+			}
+			compressed.finish();
+			compressed.flush();
+		} finally {
+			deflater.end();
+		}
+		writeChunk(out, "IEND", new byte[0], 0);
+		out.flush();
+	}
+
+	/**
+	 * This method clears a strip and draws the shapes of the model which are in it.
+	 * @param strip - the image the strip is drawn into
+	 * @param model - the model to export
+	 * @param area - the area of the model being exported
+	 * @param scale - how many pixels one model unit takes up in the image
+	 * @param background - the color behind the shapes, or null for a transparent background
+	 * @param top - the image row the strip starts at
+	 */
+	private void drawStrip(BufferedImage strip, Model model, Rectangle area, double scale, Color background, int top) {
+		Graphics2D g = strip.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.setColor(background == null ? new Color(0, 0, 0, 0) : background);
+		g.fillRect(0, 0, strip.getWidth(), strip.getHeight());
+		g.setComposite(AlphaComposite.SrcOver);
+		g.translate(0, -top);
+		g.scale(scale, scale);
+		g.translate(-area.x, -area.y);
+		//The smallest area of the model that covers the strip
+		int y1 = area.y + (int) Math.floor(top / scale), y2 = area.y + (int) Math.ceil((top + strip.getHeight()) / scale);
+		renderer.draw(g, model, new Rectangle(area.x, y1, area.width, y2 - y1));
+		g.dispose();
+	}
+
+	/**
+	 * This method turns a row of ARGB pixels into the PNG's RGBA or RGB bytes.
+	 */
+	private static void toBytes(int[] pixels, int offset, int width, byte[] row, boolean alpha) {
+		int i = 0;
+		for (int x = 0; x < width; x++) {
+			int argb = pixels[offset + x];
+			row[i++] = (byte) (argb >> 16);
+			row[i++] = (byte) (argb >> 8);
+			row[i++] = (byte) argb;
+			if(alpha)
+				row[i++] = (byte) (argb >>> 24);
+		}
+	}
+
+	////////////// Row filters //////////////
+
+	/**
+	 * This method filters a row with each of the five PNG filters and picks the one whose output is likely to compress best,
+	 * the one with the smallest sum of absolute values, as the PNG specification suggests.
+	 * @param row - the row's bytes
+	 * @param previous - the bytes of the row above, all zero for the first row
+	 * @param bytesPerPixel - the number of bytes per pixel
+	 * @param filtered - the rows to write each filter's output into
+	 * @return the filter picked, whose output is in filtered at that index
+	 */
+	private static int filterRow(byte[] row, byte[] previous, int bytesPerPixel, byte[][] filtered) {
+		long[] sums = new long[5];
+		for (int i = 0; i < row.length; i++) {
+			int x = row[i] & 0xff;
+			int a = i >= bytesPerPixel ? row[i - bytesPerPixel] & 0xff : 0;
+			int b = previous[i] & 0xff;
+			int c = i >= bytesPerPixel ? previous[i - bytesPerPixel] & 0xff : 0;
+			filtered[0][i] = (byte) x;
+			filtered[1][i] = (byte) (x - a);
+			filtered[2][i] = (byte) (x - b);
+			filtered[3][i] = (byte) (x - ((a + b) >> 1));
+			filtered[4][i] = (byte) (x - paeth(a, b, c));
+			for (int f = 0; f < 5; f++)
+				sums[f] += Math.abs(filtered[f][i]);
+		}
+		int best = 0;
+		for (int f = 1; f < 5; f++) {
+			if(sums[f] < sums[best])
+				best = f;
+		}
+		return best;
+	}
+
+	/**
+	 * This method is the PNG Paeth predictor, which picks whichever of the left, above and above left bytes is closest to left + above - above left.
+	 */
+	private static int paeth(int a, int b, int c) {
+		int p = a + b - c;
+		int pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+		if(pa <= pb && pa <= pc)
+			return a;
+		if(pb <= pc)
+			return b;
+		return c;
+	}
+
+	////////////// Chunks //////////////
+
+	/**
+	 * This method writes a PNG chunk: its length, type, data and the CRC of its type and data.
+	 */
+	private static void writeChunk(OutputStream out, String type, byte[] data, int length) throws IOException {
+		byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+		CRC32 crc = new CRC32();
+		crc.update(typeBytes);
+		crc.update(data, 0, length);
+		DataOutputStream chunk = new DataOutputStream(out);
+		chunk.writeInt(length);
+		chunk.write(typeBytes);
+		chunk.write(data, 0, length);
+		chunk.writeInt((int) crc.getValue());
+	}
+
+	/**
+	 * This class collects the compressed image data and writes it out as IDAT chunks as it fills up.
+	 */
+	private static class ChunkOutputStream extends OutputStream {
+		private final OutputStream out;
+		private final byte[] buffer = new byte[CHUNK_SIZE];
+		private int length = 0;
+
+		ChunkOutputStream(OutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if(length == buffer.length)
+				flush();
+			buffer[length++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			while(len > 0) {
+				if(length == buffer.length)
+					flush();
+				int n = Math.min(len, buffer.length - length);
+				System.arraycopy(b, off, buffer, length, n);
+				length += n;
+				off += n;
+				len -= n;
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if(length > 0) {
+				writeChunk(out, "IDAT", buffer, length);
+				length = 0;
+			}
+		}
+	}
+}
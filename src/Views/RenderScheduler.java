@@ -0,0 +1,74 @@
+package Views;
+
+import javax.swing.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class limits how often the canvas is painted. Any number of requests made within a frame are folded into one frame,
+ * which is rendered on the event dispatch thread no sooner than a frame after the previous one.
+ * It counts how many frames were requested and how many were actually rendered.
+ */
+public class RenderScheduler {
+
+	//About 60 frames per second
+	public static final int FRAME_MILLIS = 16;
+
+	private final Runnable render;
+	private final Timer timer;
+	private final AtomicBoolean pending = new AtomicBoolean(false);
+	private final AtomicLong requestedFrames = new AtomicLong();
+	private final AtomicLong renderedFrames = new AtomicLong();
+	private volatile long lastFrame;
+
+	/**
+	 * Constructor for the class.
+	 * @param render - what to run on the event dispatch thread to render a frame
+	 */
+	public RenderScheduler(Runnable render) {
+		this.render = render;
+		timer = new Timer(FRAME_MILLIS, e -> renderFrame());
+		timer.setRepeats(false);
+		lastFrame = System.nanoTime() - FRAME_MILLIS * 1000000L;
+	}
+
+	/**
+	 * This method asks for a frame to be rendered. If one is already waiting, this request is folded into it.
+	 * It can be called from any thread.
+	 */
+	public void requestFrame() {
+		requestedFrames.incrementAndGet();
+		if(pending.compareAndSet(false, true)) {
+			//Wait out whatever is left of the frame since the last one was rendered
+			long elapsed = (System.nanoTime() - lastFrame) / 1000000L;
+			timer.setInitialDelay((int) Math.max(0, Math.min(FRAME_MILLIS, FRAME_MILLIS - elapsed)));
+			timer.restart();
+		}
+	}
+
+	/**
+	 * This method renders a frame. Requests made while it is rendering are rendered in the next frame.
+	 */
+	private void renderFrame() {
+		pending.set(false);
+		lastFrame = System.nanoTime();
+		renderedFrames.incrementAndGet();
+		render.run();
+	}
+
+	/**
+	 * Getter method for how many frames have been requested.
+	 * @return the number of requests
+	 */
+	public long getRequestedFrames() {
+		return requestedFrames.get();
+	}
+
+	/**
+	 * Getter method for how many frames have actually been rendered.
+	 * @return the number of frames rendered
+	 */
+	public long getRenderedFrames() {
+		return renderedFrames.get();
+	}
+}
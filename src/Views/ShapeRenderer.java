@@ -0,0 +1,532 @@
+package Views;
+
+import Models.Geometry;
+import Models.Model;
+import Models.PerformanceCounters;
+import Models.Shape;
+import Models.ShapeStore;
+import Models.ShapeTypes;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class draws shapes onto any graphics, such as a window, a tile or an image.
+ * It doesn't need a window or a display, so a model can be drawn into a BufferedImage when running headless, for example to export or test it.
+ * The canvas, its tiles and its preview all draw through here.
+ * When the drawing is zoomed out, shapes which end up only a few pixels across are drawn with less detail (fewer corners and thinner strokes),
+ * and shapes smaller than a pixel are drawn as a single pixel. How small a shape has to be for this is set by the fidelity,
+ * and the renderer counts how many shapes were drawn at each level of detail.
+ */
+public class ShapeRenderer {
+
+	//Below these sizes on screen, in pixels at the lowest fidelity, shapes are drawn as a pixel or with less detail
+	private static final double PIXEL_SIZE = 2, SIMPLIFIED_SIZE = 16;
+
+	//A one pixel wide stroke however far the drawing is zoomed out
+	private static final BasicStroke HAIRLINE = new BasicStroke(0);
+
+	//Strokes for the usual widths are kept and shared, as they never change once made
+	private static final BasicStroke[] STROKES = new BasicStroke[64];
+
+	//The most shapes drawn as one path
+	private static final int MAX_BATCH = 64;
+
+	private volatile double fidelity = 0.5;
+	private volatile boolean batching = true;
+	private final LongAdder drawnFull = new LongAdder(), drawnSimplified = new LongAdder(), drawnAsPixels = new LongAdder();
+
+	/**
+	 * This method draws all of a model's shapes in drawing order.
+	 * @param g - the graphics to draw on
+	 * @param model - the model whose shapes are drawn
+	 */
+	public void draw(Graphics2D g, Model model) {
+		draw(g, model.getShapes().iterator());
+	}
+
+	/**
+	 * This method draws the shapes of a model which overlap an area, in drawing order, using the model's spatial index to skip the rest.
+	 * @param g - the graphics to draw on
+	 * @param model - the model whose shapes are drawn
+	 * @param area - the area to draw
+	 */
+	public void draw(Graphics2D g, Model model, Rectangle area) {
+		double scale = scaleOf(g);
+		int[] slots = model.shapesIn(area);
+		Batch batch = batching ? new Batch(g) : null;
+		for (int slot : slots) {
+			draw(g, model.getStore().get(slot), scale, batch);
+		}
+		if(batch != null)
+			batch.flush();
+	}
+
+	/**
+	 * This method draws shapes in the order they are given.
+	 * @param g - the graphics to draw on
+	 * @param shapes - the shapes to be drawn
+	 */
+	public void draw(Graphics2D g, Iterator<? extends Shape> shapes) {
+		double scale = scaleOf(g);
+		Batch batch = batching ? new Batch(g) : null;
+		while(shapes.hasNext()) {
+			draw(g, shapes.next(), scale, batch);
+		}
+		if(batch != null)
+			batch.flush();
+	}
+
+	/**
+	 * This method draws a model into a new image, without needing a display.
+	 * @param model - the model whose shapes are drawn
+	 * @param width - the width of the image
+	 * @param height - the height of the image
+	 * @param background - the color behind the shapes, or null to leave the image transparent
+	 * @return the image
+	 */
+	public BufferedImage render(Model model, int width, int height, Color background) {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		if(background != null) {
+			g.setColor(background);
+			g.fillRect(0, 0, width, height);
+		}
+		draw(g, model, new Rectangle(0, 0, width, height));
+		g.dispose();
+		return image;
+	}
+
+	/**
+	 * This method finds the area of a model that is drawn on, from the canvas' top left corner to the furthest edge of any shape, for exporting it.
+	 * @param model - the model
+	 * @return the area covering all of the model's shapes
+	 */
+	public static Rectangle extent(Model model) {
+		Rectangle extent = new Rectangle(0, 0, 1, 1);
+		ShapeStore store = model.getStore();
+		for (int slot = 0; slot < store.size(); slot++) {
+			extent.add(Geometry.bounds(store, slot));
+		}
+		return extent;
+	}
+
+	////////////// Level of detail //////////////
+
+	/**
+	 * Setter method for the fidelity, which trades how faithfully small shapes are drawn for how quickly a zoomed out drawing is drawn.
+	 * At 1 every shape is drawn in full however small it is. At the default of 0.5 shapes under a pixel across are drawn as a pixel
+	 * and shapes under 8 pixels across are simplified, and at 0 those sizes double. Shapes are always drawn in full at actual size or zoomed in.
+	 * @param fidelity - the fidelity, from 0 to 1
+	 */
+	public void setFidelity(double fidelity) {
+		this.fidelity = Math.max(0, Math.min(1, fidelity));
+	}
+
+	/**
+	 * Getter method for the fidelity.
+	 * @return the fidelity, from 0 to 1
+	 */
+	public double getFidelity() {
+		return fidelity;
+	}
+
+	/**
+	 * Getter method for how many shapes have been drawn in full.
+	 * @return the number of shapes
+	 */
+	public long getDrawnFull() {
+		return drawnFull.sum();
+	}
+
+	/**
+	 * Getter method for how many shapes have been drawn with fewer corners or a thinner stroke because they were small on screen.
+	 * @return the number of shapes
+	 */
+	public long getDrawnSimplified() {
+		return drawnSimplified.sum();
+	}
+
+	/**
+	 * Getter method for how many shapes have been drawn as a single pixel because they were smaller than a pixel on screen.
+	 * @return the number of shapes
+	 */
+	public long getDrawnAsPixels() {
+		return drawnAsPixels.sum();
+	}
+
+	/**
+	 * This method sets the counts of shapes drawn at each level of detail back to zero.
+	 */
+	public void resetCounters() {
+		drawnFull.reset();
+		drawnSimplified.reset();
+		drawnAsPixels.reset();
+	}
+
+	/**
+	 * This method gets the stroke for a width, shared between every shape drawn with that width.
+	 * Two threads may both make a missing stroke, but they're the same, so it doesn't matter which is kept.
+	 * @param width - the stroke width
+	 * @return the stroke
+	 */
+	static BasicStroke strokeOf(int width) {
+		if(width < 0 || width >= STROKES.length) {
+			if(PerformanceCounters.isEnabled())
+				PerformanceCounters.strokeMisses.increment();
+			return new BasicStroke(width);
+		}
+		BasicStroke stroke = STROKES[width];
+		if(stroke == null) {
+			STROKES[width] = stroke = new BasicStroke(width);
+			if(PerformanceCounters.isEnabled())
+				PerformanceCounters.strokeMisses.increment();
+		} else if(PerformanceCounters.isEnabled()) {
+			PerformanceCounters.strokeHits.increment();
+		}
+		return stroke;
+	}
+
+	/**
+	 * This method works out how many pixels one model unit takes up on a graphics.
+	 */
+	private static double scaleOf(Graphics2D g) {
+		AffineTransform transform = g.getTransform();
+		return Math.sqrt(Math.abs(transform.getDeterminant()));
+	}
+
+	/**
+	 * This method draws a shape at the level of detail its size on screen calls for.
+	 * @param g - the graphics to draw the shape on
+	 * @param n - the shape to be drawn
+	 * @param scale - how many pixels one model unit takes up on the graphics
+	 * @param batch - the batch shapes drawn in full are added to, or null to draw them straight away
+	 */
+	private void draw(Graphics2D g, Shape n, double scale, Batch batch) {
+		double lod = 1 - fidelity;
+		if(scale >= 1 || lod == 0) {
+			drawFull(g, n, batch);
+			drawnFull.increment();
+			return;
+		}
+
+		//How far the shape spreads, lines go from (startX, endX) to (startY, endY)
+		int width, height, left, top;
+		if(n.getShapeType().equals("Line")) {
+			width = Math.abs(n.getStartY() - n.getStartX());
+			height = Math.abs(n.getEndY() - n.getEndX());
+			left = Math.min(n.getStartX(), n.getStartY());
+			top = Math.min(n.getEndX(), n.getEndY());
+		} else {
+			width = Math.abs(n.getEndX() - n.getStartX());
+			height = Math.abs(n.getEndY() - n.getStartY());
+			left = Math.min(n.getStartX(), n.getEndX());
+			top = Math.min(n.getStartY(), n.getEndY());
+		}
+		double size = (Math.max(width, height) + n.getStrokeWidth()) * scale;
+
+		if(batch != null && size < SIMPLIFIED_SIZE * lod) {
+			//Shapes with less detail set the graphics' color and stroke themselves
+			batch.flush();
+			batch.forgetState();
+		}
+		if(size < PIXEL_SIZE * lod) {
+			//Smaller than a pixel, so it's drawn as the pixel at its middle
+			g.setColor(n.getFillColor() == null ? n.getStrokeColor() : n.getFillColor());
+			int pixel = (int) Math.ceil(1 / scale);
+			g.fillRect(left + width / 2, top + height / 2, pixel, pixel);
+			drawnAsPixels.increment();
+		} else if(size < SIMPLIFIED_SIZE * lod) {
+			drawSimplified(g, n, scale, size);
+			drawnSimplified.increment();
+		} else {
+			drawFull(g, n, batch);
+			drawnFull.increment();
+		}
+	}
+
+	/**
+	 * This method draws a shape that is only a few pixels across on screen: strokes thinner than a pixel are drawn one pixel wide
+	 * and regular polygons get fewer corners, about one for every two pixels across they are.
+	 * @param g - the graphics to draw the shape on
+	 * @param n - the shape to be drawn
+	 * @param scale - how many pixels one model unit takes up on the graphics
+	 * @param size - how many pixels across the shape is on screen
+	 */
+	private void drawSimplified(Graphics2D g, Shape n, double scale, double size) {
+		int sides;
+		switch(n.getShapeType()){
+			case "Hexagon":
+				sides = 6;
+				break;
+			case "Octagon":
+				sides = 8;
+				break;
+			case "Polygon":
+				sides = ShapeTypes.extraOf(n);
+				break;
+			default:
+				sides = 0;
+				break;
+		}
+		int corners = Math.max(3, (int) (size / 2));
+		boolean thin = n.getStrokeWidth() * scale < 1;
+
+		g.setColor(n.getFillColor() == null ? n.getStrokeColor() : n.getFillColor());
+		if(sides > corners) {
+			int[][] points = Geometry.vertices(ShapeTypes.POLYGON, n.getStartX(), n.getStartY(), n.getEndX(), n.getEndY(), corners);
+			g.setStroke(thin ? HAIRLINE : strokeOf(n.getStrokeWidth()));
+			if(n.getFillColor() == null)
+				g.drawPolygon(points[0], points[1], corners);
+			else
+				g.fillPolygon(points[0], points[1], corners);
+		} else if(thin) {
+			g.setStroke(HAIRLINE);
+			switch(n.getShapeType()){
+				case "Circle":
+				case "Ellipse":
+				case "Line":
+					g.draw(n.getOutline());
+					break;
+				default:
+					if(n.getFillColor() == null)
+						g.draw(n.getOutline());
+					else
+						g.fill(n.getOutline());
+					break;
+			}
+		} else {
+			drawFull(g, n, null);
+		}
+	}
+
+	/**
+	 * This method draws the given shape, with less detail if it is small on screen.
+	 * It only changes the graphics' color and stroke, so it can be called from several threads as long as each has its own graphics.
+	 * @param g - the graphics to draw the shape on
+	 * @param n - the shape to be drawn
+	 */
+	public void draw(Graphics2D g, Shape n){
+		draw(g, n, scaleOf(g), null);
+	}
+
+	/**
+	 * This method draws the given shape in full, using the outline the shape keeps, so its corners are only worked out again after it has changed.
+	 * @param g - the graphics to draw the shape on
+	 * @param n - the shape to be drawn
+	 * @param batch - the batch to add the shape to, or null to draw it straight away
+	 */
+	private void drawFull(Graphics2D g, Shape n, Batch batch){
+
+		//Shape fill or stroke color
+		Color color = n.getFillColor() == null ? n.getStrokeColor() : n.getFillColor();
+
+		//Lines can't be filled, and circles and ellipses have always been drawn as outlines even when filled
+		boolean fill;
+		switch(n.getShapeType()){
+			case "Circle":
+			case "Ellipse":
+			case "Line":
+				fill = false;
+				break;
+			default:
+				fill = n.getFillColor() != null;
+				break;
+		}
+
+		if(batch != null && color != null) {
+			batch.add(n, n.getOutline(), color, fill);
+		} else {
+			//A shape with no color can't be compared with the batch's, so it's drawn on its own after the shapes before it,
+			//in whatever color the graphics has, as it is without batching
+			if(batch != null) {
+				batch.flush();
+				batch.forgetState();
+			}
+			g.setColor(color);
+			g.setStroke(strokeOf(n.getStrokeWidth()));
+			paint(g, n.getOutline(), fill);
+		}
+	}
+
+	/**
+	 * This method fills or strokes an outline with the graphics' color and stroke.
+	 * @param g - the graphics to draw on
+	 * @param outline - the outline
+	 * @param fill - true to fill the outline, false to stroke it
+	 */
+	private static void paint(Graphics2D g, java.awt.Shape outline, boolean fill) {
+		if(outline instanceof Polygon){
+			//Polygons go through drawPolygon and fillPolygon, which rasterize their edges a little differently to draw and fill
+			if(fill)
+				g.fillPolygon((Polygon) outline);
+			else
+				g.drawPolygon((Polygon) outline);
+		} else if(fill){
+			g.fill(outline);
+		} else {
+			g.draw(outline);
+		}
+	}
+
+	////////////// Batching //////////////
+
+	/**
+	 * Setter method for whether shapes drawn in full are batched, which they are by default.
+	 * @param batching - true to batch shapes, false to draw each one on its own
+	 */
+	public void setBatching(boolean batching) {
+		this.batching = batching;
+	}
+
+	/**
+	 * This class draws shapes one after another, only setting the graphics' color and stroke when they change,
+	 * and collects thin circles and ellipses drawn one after another in the same color into one path drawn with one call.
+	 * A shape only joins the path if it doesn't come near any shape already in it, so the shapes in a path can be drawn in any order,
+	 * their strokes can't cancel each other out, and drawing them together looks the same as drawing them one after another.
+	 * Java only rasterizes a path exactly as it does its parts when drawing at actual size without antialiasing,
+	 * so otherwise every shape is drawn on its own.
+	 * Each batch belongs to one graphics, so tiles drawn on different threads each have their own.
+	 */
+	private static final class Batch {
+		private final Graphics2D g;
+		private final boolean merging;
+		private final Path2D.Float path = new Path2D.Float();
+		//The bounds of the shapes in the path, which are checked one by one as they're scattered
+		private final int[] left = new int[MAX_BATCH], top = new int[MAX_BATCH], right = new int[MAX_BATCH], bottom = new int[MAX_BATCH];
+		//The first shape's outline, drawn on its own if no other shape joins it
+		private java.awt.Shape first;
+		private int count = 0;
+		//The area around the shapes in the path, and the area of the shapes themselves
+		private final Rectangle extent = new Rectangle();
+		private long covered;
+		private Color color;
+		private int width;
+		private boolean fill;
+
+		//The color and stroke last set on the graphics, or null if they aren't known
+		private Color setColor;
+		private BasicStroke setStroke;
+
+		Batch(Graphics2D g) {
+			this.g = g;
+			//Moved by whole pixels at most, without antialiasing
+			AffineTransform transform = g.getTransform();
+			merging = (transform.getType() & ~AffineTransform.TYPE_TRANSLATION) == 0
+					&& transform.getTranslateX() == Math.rint(transform.getTranslateX()) && transform.getTranslateY() == Math.rint(transform.getTranslateY())
+					&& g.getRenderingHint(RenderingHints.KEY_ANTIALIASING) != RenderingHints.VALUE_ANTIALIAS_ON;
+		}
+
+		/**
+		 * This method adds a shape to the batch, drawing the shapes already in it first if the shape can't join them.
+		 * @param n - the shape
+		 * @param outline - the shape's outline
+		 * @param color - the color it's drawn in
+		 * @param fill - true if the outline is filled, false if it's stroked
+		 */
+		void add(Shape n, java.awt.Shape outline, Color color, boolean fill) {
+			int width = n.getStrokeWidth();
+			boolean joins = merging && count > 0 && count < MAX_BATCH && color.getRGB() == this.color.getRGB() && width == this.width
+					&& fill == this.fill && mergeable(first, width) && mergeable(outline, width);
+			//Only shapes which could join others need their bounds
+			Rectangle shapeBounds = joins || (merging && mergeable(outline, width)) ? Geometry.bounds(n) : null;
+			if(joins)
+				joins = compact(shapeBounds) && !overlaps(shapeBounds);
+
+			if(!joins) {
+				flush();
+				first = outline;
+				this.color = color;
+				this.width = width;
+				this.fill = fill;
+				covered = 0;
+				if(shapeBounds != null)
+					extent.setBounds(shapeBounds);
+			} else {
+				if(count == 1)
+					path.append(first, false);
+				path.append(outline, false);
+				extent.add(shapeBounds);
+			}
+			if(shapeBounds != null) {
+				covered += (long) shapeBounds.width * shapeBounds.height;
+				left[count] = shapeBounds.x;
+				top[count] = shapeBounds.y;
+				right[count] = shapeBounds.x + shapeBounds.width;
+				bottom[count] = shapeBounds.y + shapeBounds.height;
+			}
+			count++;
+		}
+
+		/**
+		 * This method checks whether the shapes in the batch would still mostly fill the area around them with another shape added.
+		 * A path is rasterized across the whole area around it, so joining shapes far apart would take longer than drawing them one by one.
+		 */
+		private boolean compact(Rectangle area) {
+			Rectangle joined = extent.union(area);
+			return (long) joined.width * joined.height <= 2 * (covered + (long) area.width * area.height);
+		}
+
+		/**
+		 * This method checks whether an area overlaps any shape in the batch.
+		 */
+		private boolean overlaps(Rectangle area) {
+			int x2 = area.x + area.width, y2 = area.y + area.height;
+			for (int i = 0; i < count; i++) {
+				if(area.x < right[i] && x2 > left[i] && area.y < bottom[i] && y2 > top[i])
+					return true;
+			}
+			return false;
+		}
+
+		/**
+		 * This method draws the shapes in the batch and empties it.
+		 */
+		void flush() {
+			if(count == 0)
+				return;
+			if(setColor == null || setColor.getRGB() != color.getRGB()) {
+				g.setColor(color);
+				setColor = color;
+			}
+			BasicStroke stroke = strokeOf(width);
+			if(stroke != setStroke) {
+				g.setStroke(stroke);
+				setStroke = stroke;
+			}
+			if(count == 1) {
+				paint(g, first, fill);
+			} else {
+				if(fill)
+					g.fill(path);
+				else
+					g.draw(path);
+				path.reset();
+			}
+			count = 0;
+			first = null;
+		}
+
+		/**
+		 * This method forgets which color and stroke the graphics has, after something else has changed them.
+		 */
+		void forgetState() {
+			setColor = null;
+			setStroke = null;
+		}
+
+		/**
+		 * This method checks whether an outline is worth drawing as part of a path. Only thin outlines of circles and ellipses are:
+		 * rectangles and lines are drawn quicker on their own, wider strokes cost as much either way,
+		 * and polygons are drawn through drawPolygon and fillPolygon, which rasterize them a little differently to a path.
+		 */
+		private static boolean mergeable(java.awt.Shape outline, int width) {
+			return outline instanceof Ellipse2D && width <= 1;
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package Views;
+
+import Models.Geometry;
+import Models.Model;
+import Models.ShapeStore;
+import Models.ShapeTypes;
+
+import java.awt.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class exports a model as an SVG drawing, so it can be edited in other tools.
+ * Each shape is written straight to the output as an SVG element as the model's shapes are gone through in drawing order,
+ * read from the shape store's attributes without creating a shape object, so exporting takes the same memory however many shapes there are.
+ * Shapes are written to look the way the canvas draws them: circles and ellipses are always outlined, lines go from (startX, endX) to (startY, endY),
+ * and strokes have square ends and mitred corners like Java's default stroke.
+ */
+public class SvgExporter {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * This method exports a model to an SVG file.
+	 * @param model - the model to export
+	 * @param background - the color behind the shapes, or null to leave it transparent
+	 * @param file - the file to write
+	 * @throws IOException if the file can't be written
+	 */
+	public void export(Model model, Color background, File file) throws IOException {
+		try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+			export(model, background, out);
+		}
+	}
+
+	/**
+	 * This method exports a model as an SVG drawing covering all of its shapes, written to a writer one shape at a time.
+	 * @param model - the model to export
+	 * @param background - the color behind the shapes, or null to leave it transparent
+	 * @param out - the writer, which should be buffered and is left open
+	 * @throws IOException if the drawing can't be written
+	 */
+	public void export(Model model, Color background, Writer out) throws IOException {
+		Rectangle extent = ShapeRenderer.extent(model);
+		out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" version=\"1.1\" width=\"");
+		out.write(Integer.toString(extent.width));
+		out.write("\" height=\"");
+		out.write(Integer.toString(extent.height));
+		out.write("\" viewBox=\"");
+		out.write(extent.x + " " + extent.y + " " + extent.width + " " + extent.height);
+		out.write("\">\n");
+		if(background != null) {
+			out.write("<rect x=\"" + extent.x + "\" y=\"" + extent.y + "\" width=\"" + extent.width + "\" height=\"" + extent.height + "\"");
+			writeColor(out, "fill", background.getRGB());
+			out.write("/>\n");
+		}
+		out.write("<g stroke-linecap=\"square\" stroke-linejoin=\"miter\" stroke-miterlimit=\"10\">\n");
+
+		ShapeStore store = model.getStore();
+		for (int slot = 0; slot < store.size(); slot++) {
+			writeShape(out, store, slot);
+		}
+
+		out.write("</g>\n</svg>\n");
+		out.flush();
+	}
+
+	/**
+	 * This method writes one shape as an SVG element.
+	 * @param out - the writer
+	 * @param store - the store the shape is in
+	 * @param slot - the shape's slot
+	 * @throws IOException if the shape can't be written
+	 */
+	private void writeShape(Writer out, ShapeStore store, int slot) throws IOException {
+		byte type = store.getType(slot);
+		int startX = store.getStartX(slot), startY = store.getStartY(slot), endX = store.getEndX(slot), endY = store.getEndY(slot);
+		int minX = Math.min(startX, endX), minY = Math.min(startY, endY);
+		int width = Math.abs(endX - startX), height = Math.abs(endY - startY);
+		boolean filled = store.hasFillColor(slot);
+		//A shape can have neither color, such as when the color chooser was cancelled, and then it isn't painted at all
+		boolean colored = filled || store.hasStrokeColor(slot);
+		int color = filled ? store.getFillColor(slot) : colored ? store.getStrokeColor(slot) : 0;
+
+		switch (type) {
+			case ShapeTypes.LINE:
+				out.write("<line x1=\"");
+				out.write(Integer.toString(startX));
+				out.write("\" y1=\"");
+				out.write(Integer.toString(endX));
+				out.write("\" x2=\"");
+				out.write(Integer.toString(startY));
+				out.write("\" y2=\"");
+				out.write(Integer.toString(endY));
+				out.write('"');
+				//Lines can't be filled, the fill color is used for their stroke
+				filled = false;
+				break;
+			case ShapeTypes.RECTANGLE:
+			case ShapeTypes.SQUARE:
+				out.write("<rect x=\"");
+				out.write(Integer.toString(minX));
+				out.write("\" y=\"");
+				out.write(Integer.toString(minY));
+				out.write("\" width=\"");
+				out.write(Integer.toString(width));
+				out.write("\" height=\"");
+				out.write(Integer.toString(type == ShapeTypes.SQUARE ? width : height));
+				out.write('"');
+				break;
+			case ShapeTypes.ELLIPSE:
+			case ShapeTypes.CIRCLE:
+				int ellipseHeight = type == ShapeTypes.CIRCLE ? width : height;
+				out.write("<ellipse cx=\"");
+				writeHalf(out, 2 * minX + width);
+				out.write("\" cy=\"");
+				writeHalf(out, 2 * minY + ellipseHeight);
+				out.write("\" rx=\"");
+				writeHalf(out, width);
+				out.write("\" ry=\"");
+				writeHalf(out, ellipseHeight);
+				out.write('"');
+				//The canvas draws circles and ellipses as outlines even when they're filled
+				filled = false;
+				break;
+			case ShapeTypes.PARALLELOGRAM:
+				//The canvas draws a parallelogram's outline as a path back to its first corner rather than closing it, like a polyline
+				int[][] corners = Geometry.vertices(type, startX, startY, endX, endY, store.getExtra(slot));
+				out.write(filled ? "<polygon" : "<polyline");
+				writePoints(out, corners, !filled);
+				break;
+			default:
+				out.write("<polygon");
+				writePoints(out, Geometry.vertices(type, startX, startY, endX, endY, store.getExtra(slot)), false);
+				break;
+		}
+
+		if(!colored) {
+			out.write(" fill=\"none\" stroke=\"none\"");
+		} else if(filled) {
+			writeColor(out, "fill", color);
+		} else {
+			out.write(" fill=\"none\"");
+			writeColor(out, "stroke", color);
+			//A stroke width of 0 is drawn one pixel wide on the canvas
+			out.write(" stroke-width=\"");
+			out.write(Integer.toString(Math.max(1, store.getStrokeWidth(slot))));
+			out.write('"');
+		}
+		out.write("/>\n");
+	}
+
+	/**
+	 * This method writes the points attribute of a polygon or polyline.
+	 * @param out - the writer
+	 * @param corners - the x and y coordinates of the corners
+	 * @param backToStart - whether to repeat the first corner at the end
+	 * @throws IOException if the points can't be written
+	 */
+	private static void writePoints(Writer out, int[][] corners, boolean backToStart) throws IOException {
+		out.write(" points=\"");
+		int count = corners[0].length;
+		for (int i = 0; i <= count; i++) {
+			if(i == count && !backToStart)
+				break;
+			if(i > 0)
+				out.write(' ');
+			out.write(Integer.toString(corners[0][i % count]));
+			out.write(',');
+			out.write(Integer.toString(corners[1][i % count]));
+		}
+		out.write('"');
+	}
+
+	/**
+	 * This method writes half of a whole number, which is either whole or ends in .5.
+	 */
+	private static void writeHalf(Writer out, int twice) throws IOException {
+		if(twice < 0) {
+			out.write('-');
+			twice = -twice;
+		}
+		out.write(Integer.toString(twice / 2));
+		if(twice % 2 != 0)
+			out.write(".5");
+	}
+
+	/**
+	 * This method writes a fill or stroke color attribute, and its opacity if it isn't opaque.
+	 * @param out - the writer
+	 * @param attribute - fill or stroke
+	 * @param argb - the color as an ARGB value
+	 * @throws IOException if the color can't be written
+	 */
+	private static void writeColor(Writer out, String attribute, int argb) throws IOException {
+		out.write(' ');
+		out.write(attribute);
+		out.write("=\"#");
+		for (int shift = 20; shift >= 0; shift -= 4)
+			out.write(Character.forDigit((argb >> shift) & 0xf, 16));
+		out.write('"');
+		int alpha = argb >>> 24;
+		if(alpha < 255) {
+			out.write(' ');
+			out.write(attribute);
+			out.write("-opacity=\"");
+			out.write(Double.toString(Math.round(alpha / 255.0 * 1000) / 1000.0));
+			out.write('"');
+		}
+	}
+}
@@ -0,0 +1,240 @@
+package Views;
+
+import Models.Model;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class makes small preview images of saved canvas files, so a file can be seen before it is loaded.
+ * Reading a saved canvas means reading every shape in it, so thumbnails are made on background threads and never on the thread that asked for them.
+ * Each thumbnail is kept in memory and as a PNG in a cache folder, under a name worked out from the file's path, last modified time and size,
+ * so a file is only read again once it has changed, even after the program is restarted.
+ * The cache folder is kept under a size limit by deleting the thumbnails used least recently.
+ */
+public class ThumbnailCache {
+
+	public static final int THUMBNAIL_SIZE = 160;
+
+	//How many thumbnails are kept in memory, the rest are read back from the cache folder
+	private static final int MEMORY_ENTRIES = 256;
+	//How many bytes of thumbnails are kept in the cache folder by default
+	public static final long DEFAULT_DISK_BYTES = 32L << 20;
+
+	private final File folder;
+	private final ShapeRenderer renderer;
+	private final ExecutorService executor;
+	private final Map<String, BufferedImage> memory = new LinkedHashMap<String, BufferedImage>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest) {
+			return size() > MEMORY_ENTRIES;
+		}
+	};
+	private final ConcurrentHashMap<String, CompletableFuture<BufferedImage>> pending = new ConcurrentHashMap<>();
+	private final LongAdder filesRead = new LongAdder();
+	private volatile long diskBytes = DEFAULT_DISK_BYTES;
+
+	/**
+	 * Constructor for the class, keeping thumbnails in a folder in the user's home folder.
+	 */
+	public ThumbnailCache() {
+		this(new File(System.getProperty("user.home"), ".javapaint" + File.separator + "thumbnails"));
+	}
+
+	/**
+	 * Constructor for the class.
+	 * @param folder - the folder the thumbnails are kept in, which is made if it doesn't exist
+	 */
+	public ThumbnailCache(File folder) {
+		this.folder = folder;
+		this.renderer = new ShapeRenderer();
+		//Low priority daemon threads, so making thumbnails doesn't slow down drawing or keep the program open
+		this.executor = Executors.newFixedThreadPool(Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1)), task -> {
+			Thread thread = new Thread(task, "Thumbnails");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+	}
+
+	/**
+	 * This method gets the thumbnail of a saved canvas file, from memory or the cache folder if it's there and otherwise by reading the file
+	 * on a background thread. Asking for a thumbnail that is already being made gives the same result rather than reading the file again.
+	 * @param file - the saved canvas file
+	 * @return the thumbnail once it has been found or made, or null if the file isn't a saved canvas
+	 */
+	public CompletableFuture<BufferedImage> thumbnail(File file) {
+		String key = key(file);
+		synchronized (memory) {
+			BufferedImage image = memory.get(key);
+			if(image != null)
+				return CompletableFuture.completedFuture(image);
+		}
+		CompletableFuture<BufferedImage> thumbnail = new CompletableFuture<>();
+		CompletableFuture<BufferedImage> making = pending.putIfAbsent(key, thumbnail);
+		if(making != null)
+			return making;
+		executor.execute(() -> {
+			try {
+				thumbnail.complete(make(file, key));
+			} catch(RuntimeException ex) {
+				thumbnail.completeExceptionally(ex);
+			} finally {
+				pending.remove(key, thumbnail);
+			}
+		});
+		return thumbnail;
+	}
+
+	/**
+	 * This method reads a thumbnail back from the cache folder, or makes it from the file and saves it there.
+	 * @param file - the saved canvas file
+	 * @param key - the key the thumbnail is kept under
+	 * @return the thumbnail, or null if the file isn't a saved canvas
+	 */
+	private BufferedImage make(File file, String key) {
+		File cached = new File(folder, UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)) + ".png");
+		BufferedImage image = null;
+		try {
+			if(cached.isFile()) {
+				image = ImageIO.read(cached);
+				//Marked as used, so it's among the last to be deleted when the folder is over its limit
+				cached.setLastModified(System.currentTimeMillis());
+			}
+		} catch(IOException ex) {
+			//An unreadable thumbnail is made again
+		}
+
+		if(image == null) {
+			Model model = read(file);
+			if(model == null)
+				return null;
+			try {
+				image = render(model);
+			} finally {
+				//The model's history may have put commands in a spill file while it was read, which isn't needed for a thumbnail
+				model.getHistory().close();
+			}
+			try {
+				folder.mkdirs();
+				//Written under another name first, so another thread never reads half a thumbnail
+				File temp = new File(folder, cached.getName() + ".tmp");
+				ImageIO.write(image, "png", temp);
+				if(!temp.renameTo(cached))
+					temp.delete();
+				prune();
+			} catch(IOException ex) {
+				//The thumbnail is still kept in memory
+			}
+		}
+
+		synchronized (memory) {
+			memory.put(key, image);
+		}
+		return image;
+	}
+
+	/**
+	 * This method deletes the thumbnails in the cache folder used least recently until the folder is under its size limit.
+	 */
+	private void prune() {
+		File[] thumbnails = folder.listFiles((dir, name) -> name.endsWith(".png"));
+		if(thumbnails == null)
+			return;
+		long total = 0;
+		for(File thumbnail : thumbnails)
+			total += thumbnail.length();
+		if(total <= diskBytes)
+			return;
+		long[] modified = new long[thumbnails.length];
+		Integer[] order = new Integer[thumbnails.length];
+		for(int i = 0; i < thumbnails.length; i++) {
+			modified[i] = thumbnails[i].lastModified();
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Long.compare(modified[a], modified[b]));
+		for(int i = 0; i < order.length && total > diskBytes; i++) {
+			File thumbnail = thumbnails[order[i]];
+			long length = thumbnail.length();
+			if(thumbnail.delete())
+				total -= length;
+		}
+	}
+
+	/**
+	 * This method reads a saved canvas file.
+	 * @param file - the saved canvas file
+	 * @return the model saved in it, or null if it isn't a saved canvas
+	 */
+	private Model read(File file) {
+		filesRead.increment();
+		try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			Object read = in.readObject();
+			return read instanceof Model ? (Model) read : null;
+		} catch(IOException | ClassNotFoundException | ClassCastException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * This method draws a model shrunk to fit a thumbnail, on a white background like a new canvas.
+	 * Shapes too small to see at that size are drawn with less detail.
+	 * @param model - the model to draw
+	 * @return the thumbnail
+	 */
+	private BufferedImage render(Model model) {
+		Rectangle extent = ShapeRenderer.extent(model);
+		double scale = Math.min(1, (double) THUMBNAIL_SIZE / Math.max(extent.width, extent.height));
+		int width = Math.max(1, (int) Math.ceil(extent.width * scale)), height = Math.max(1, (int) Math.ceil(extent.height * scale));
+
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, width, height);
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.scale(scale, scale);
+		g.translate(-extent.x, -extent.y);
+		renderer.draw(g, model, extent);
+		g.dispose();
+		return image;
+	}
+
+	/**
+	 * This method works out what a file's thumbnail is kept under, which changes whenever the file is saved again.
+	 */
+	private static String key(File file) {
+		return file.getAbsolutePath() + "|" + file.lastModified() + "|" + file.length();
+	}
+
+	/**
+	 * Setter method for how many bytes of thumbnails are kept in the cache folder, the ones used least recently are deleted past that.
+	 * @param diskBytes - the size limit of the cache folder in bytes
+	 */
+	public void setDiskBytes(long diskBytes) {
+		this.diskBytes = diskBytes;
+	}
+
+	/**
+	 * Getter method for how many saved canvas files have been read to make thumbnails, rather than found in the cache.
+	 * @return the number of files read
+	 */
+	public long getFilesRead() {
+		return filesRead.sum();
+	}
+
+	/**
+	 * This method stops the background threads once the thumbnails being made are done.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
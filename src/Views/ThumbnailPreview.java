@@ -0,0 +1,86 @@
+package Views;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+
+/**
+ * This class shows the thumbnail of the file selected in a file chooser, next to the chooser's list of files.
+ * Thumbnails are made in the background by a thumbnail cache, and the preview only shows one if its file is still the one selected once it's ready,
+ * so clicking quickly through a folder never waits for a file to be read.
+ */
+public class ThumbnailPreview extends JComponent implements PropertyChangeListener {
+
+	private static final long serialVersionUID = 1;
+	private final ThumbnailCache cache;
+	private File file;
+	private BufferedImage thumbnail;
+	private String message = "";
+
+	/**
+	 * Constructor for the class, which adds the preview to a file chooser.
+	 * @param chooser - the file chooser to show previews in
+	 * @param cache - where the thumbnails come from
+	 */
+	public ThumbnailPreview(JFileChooser chooser, ThumbnailCache cache) {
+		this.cache = cache;
+		setPreferredSize(new Dimension(ThumbnailCache.THUMBNAIL_SIZE + 20, ThumbnailCache.THUMBNAIL_SIZE + 20));
+		chooser.setAccessory(this);
+		chooser.addPropertyChangeListener(JFileChooser.SELECTED_FILE_CHANGED_PROPERTY, this);
+	}
+
+	@Override
+	public void propertyChange(PropertyChangeEvent e) {
+		File selected = (File) e.getNewValue();
+		file = selected;
+		thumbnail = null;
+		message = "";
+		if(selected != null && selected.isFile()) {
+			message = "Loading...";
+			//A thumbnail that couldn't be made shows no preview rather than leaving the preview loading
+			cache.thumbnail(selected).whenComplete((image, error) -> SwingUtilities.invokeLater(() -> show(selected, error == null ? image : null)));
+		}
+		repaint();
+	}
+
+	/**
+	 * This method shows a thumbnail once it's ready, unless another file has been selected since it was asked for.
+	 * @param selected - the file the thumbnail is of
+	 * @param image - the thumbnail, or null if the file isn't a saved canvas
+	 */
+	private void show(File selected, BufferedImage image) {
+		if(selected != file)
+			return;
+		thumbnail = image;
+		message = image == null ? "No preview" : "";
+		repaint();
+	}
+
+	/**
+	 * Getter method for the text shown in place of a thumbnail.
+	 * @return the text, which is empty when a thumbnail or nothing is shown
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		int left = 10, top = 10;
+		if(thumbnail != null) {
+			//Centred in the space for the largest thumbnail
+			int x = left + (ThumbnailCache.THUMBNAIL_SIZE - thumbnail.getWidth()) / 2;
+			int y = top + (ThumbnailCache.THUMBNAIL_SIZE - thumbnail.getHeight()) / 2;
+			g.drawImage(thumbnail, x, y, null);
+			g.setColor(Color.GRAY);
+			g.drawRect(x - 1, y - 1, thumbnail.getWidth() + 1, thumbnail.getHeight() + 1);
+		} else if(!message.isEmpty()) {
+			g.setColor(Color.GRAY);
+			FontMetrics metrics = g.getFontMetrics();
+			g.drawString(message, left + (ThumbnailCache.THUMBNAIL_SIZE - metrics.stringWidth(message)) / 2, top + ThumbnailCache.THUMBNAIL_SIZE / 2);
+		}
+	}
+}
@@ -0,0 +1,277 @@
+package Views;
+
+import Models.Model;
+import Models.PerformanceCounters;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class keeps the canvas drawn as square tiles, each holding an image of the model's shapes in its part of the canvas.
+ * Tiles are drawn the first time they're shown and are then copied onto the canvas as they are until a change in the model touches them,
+ * so a change only draws the tiles its shapes were and are in, and repainting, resizing or uncovering the canvas only copies tiles.
+ * Tiles don't depend on each other, so when several need drawing at once they are drawn in parallel, one tile per task.
+ * Tiles are laid out over the zoomed drawing, so panning only copies tiles to different places, while zooming draws them all again.
+ * Only a limited number of tiles are kept, and the ones shown least recently are thrown away first, so panning over a large canvas
+ * doesn't keep every tile it passed in memory.
+ */
+public class TileCache {
+
+	public static final int TILE_SIZE = 256;
+	//How many tiles are kept by default, 64 MB of images, which is enough to cover a 4K screen several times over
+	public static final int DEFAULT_MAX_TILES = 256;
+
+	private Model model;
+	private final ShapeRenderer renderer;
+	private int maxTiles = DEFAULT_MAX_TILES;
+	//Kept in the order they were last shown, so the first tile is the one to throw away
+	private final LinkedHashMap<Long, Tile> tiles = new LinkedHashMap<Long, Tile>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Tile> eldest) {
+			return size() > maxTiles;
+		}
+	};
+	private long tilesRendered = 0, tilesShown = 0;
+	private double scale = 1;
+	private boolean parallel = Runtime.getRuntime().availableProcessors() > 1;
+
+	//Shared by every canvas, with a thread for each core
+	private static final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+	/**
+	 * This class is one tile: its image and whether the image still shows the model.
+	 */
+	private static class Tile {
+		final BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+		boolean valid = false;
+		final int column, row;
+
+		Tile(int column, int row) {
+			this.column = column;
+			this.row = row;
+		}
+	}
+
+	/**
+	 * This class is a task which draws a range of tiles, splitting itself in half until each task draws one tile.
+	 */
+	private class RenderTiles extends RecursiveAction {
+		private static final long serialVersionUID = 1;
+		private final ArrayList<Tile> stale;
+		private final int from, to;
+
+		RenderTiles(ArrayList<Tile> stale, int from, int to) {
+			this.stale = stale;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from == 1) {
+				render(stale.get(from));
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new RenderTiles(stale, from, middle), new RenderTiles(stale, middle, to));
+			}
+		}
+	}
+
+	/**
+	 * Constructor for the class.
+	 * @param model - the model whose shapes are drawn
+	 * @param renderer - what draws the shapes into the tiles
+	 */
+	public TileCache(Model model, ShapeRenderer renderer) {
+		this.model = model;
+		this.renderer = renderer;
+	}
+
+	/**
+	 * Setter method for the model whose shapes are drawn, which means every tile has to be drawn again.
+	 * @param model - the model whose shapes are drawn
+	 */
+	public void setModel(Model model) {
+		this.model = model;
+		invalidate(null);
+	}
+
+	/**
+	 * This method marks the tiles that overlap an area as needing to be drawn again before they're next shown.
+	 * @param area - the area of the model that changed, or null if the whole canvas changed
+	 */
+	public void invalidate(Rectangle area) {
+		if(area == null) {
+			for (Tile tile : tiles.values())
+				tile.valid = false;
+			return;
+		}
+		if(area.isEmpty())
+			return;
+		//One more pixel around the area in case the scaled outline's edges are rounded out
+		int firstColumn = Math.floorDiv((int) Math.floor(area.x * scale) - 1, TILE_SIZE);
+		int lastColumn = Math.floorDiv((int) Math.ceil((area.x + area.width) * scale), TILE_SIZE);
+		int firstRow = Math.floorDiv((int) Math.floor(area.y * scale) - 1, TILE_SIZE);
+		int lastRow = Math.floorDiv((int) Math.ceil((area.y + area.height) * scale), TILE_SIZE);
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int column = firstColumn; column <= lastColumn; column++) {
+				Tile tile = tiles.get(key(column, row));
+				if(tile != null)
+					tile.valid = false;
+			}
+		}
+	}
+
+	/**
+	 * This method copies the tiles that overlap an area onto a graphics at the model's actual size, drawing any of them that aren't up to date first.
+	 * @param g - the graphics to copy the tiles onto
+	 * @param area - the area to paint
+	 */
+	public void paint(Graphics g, Rectangle area) {
+		paint(g, area, new Viewport());
+	}
+
+	/**
+	 * This method copies the tiles that overlap an area of the canvas onto a graphics, drawing any of them that aren't up to date first.
+	 * Only tiles in the area are drawn, and each only draws the shapes the model's spatial index finds in it, so shapes outside the area are never looked at.
+	 * If the viewport has been zoomed since the last paint, the tiles are thrown away and drawn again at the new zoom.
+	 * @param g - the graphics to copy the tiles onto
+	 * @param area - the area of the canvas to paint
+	 * @param viewport - how the model is zoomed and panned on the canvas
+	 */
+	public void paint(Graphics g, Rectangle area, Viewport viewport) {
+		if(area == null || area.isEmpty())
+			return;
+		if(viewport.getScale() != scale) {
+			tiles.clear();
+			scale = viewport.getScale();
+		}
+		int originX = viewport.getOriginX(), originY = viewport.getOriginY();
+		int firstColumn = Math.floorDiv(area.x + originX, TILE_SIZE), lastColumn = Math.floorDiv(area.x + originX + area.width - 1, TILE_SIZE);
+		int firstRow = Math.floorDiv(area.y + originY, TILE_SIZE), lastRow = Math.floorDiv(area.y + originY + area.height - 1, TILE_SIZE);
+
+		ArrayList<Tile> shown = new ArrayList<>();
+		ArrayList<Tile> stale = new ArrayList<>();
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int column = firstColumn; column <= lastColumn; column++) {
+				final int c = column, r = row;
+				Tile tile = tiles.computeIfAbsent(key(column, row), k -> new Tile(c, r));
+				shown.add(tile);
+				if(!tile.valid)
+					stale.add(tile);
+			}
+		}
+
+		if(parallel && stale.size() > 1) {
+			pool.invoke(new RenderTiles(stale, 0, stale.size()));
+		} else {
+			for (Tile tile : stale)
+				render(tile);
+		}
+		for (Tile tile : stale)
+			tile.valid = true;
+		if(PerformanceCounters.isEnabled() && !stale.isEmpty())
+			countCulled(stale);
+		tilesRendered += stale.size();
+		tilesShown += shown.size();
+
+		for (Tile tile : shown)
+			g.drawImage(tile.image, tile.column * TILE_SIZE - originX, tile.row * TILE_SIZE - originY, null);
+	}
+
+	/**
+	 * This method clears a tile's image and draws the shapes that overlap the tile into it, in drawing order.
+	 * Tiles can be drawn at the same time on different threads, as long as the model isn't changed while they are.
+	 * @param tile - the tile to draw
+	 */
+	private void render(Tile tile) {
+		Graphics2D g = tile.image.createGraphics();
+		g.setComposite(AlphaComposite.Clear);
+		g.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+		g.setComposite(AlphaComposite.SrcOver);
+		g.translate(-tile.column * TILE_SIZE, -tile.row * TILE_SIZE);
+		g.scale(scale, scale);
+		renderer.draw(g, model, modelArea(tile));
+		g.dispose();
+	}
+
+	/**
+	 * This method works out the smallest area of the model that covers a tile.
+	 */
+	private Rectangle modelArea(Tile tile) {
+		int x1 = (int) Math.floor(tile.column * TILE_SIZE / scale), y1 = (int) Math.floor(tile.row * TILE_SIZE / scale);
+		int x2 = (int) Math.ceil((tile.column + 1) * TILE_SIZE / scale), y2 = (int) Math.ceil((tile.row + 1) * TILE_SIZE / scale);
+		return new Rectangle(x1, y1, x2 - x1, y2 - y1);
+	}
+
+	/**
+	 * This method counts the shapes the spatial index left out of all the tiles drawn in one paint, for the performance overlay.
+	 * A shape in several of the tiles is only counted as drawn once, so each shape is counted as culled at most once per paint.
+	 * @param drawn - the tiles drawn
+	 */
+	private void countCulled(ArrayList<Tile> drawn) {
+		BitSet slots = new BitSet(model.getStore().size());
+		for (Tile tile : drawn) {
+			for (int slot : model.shapesIn(modelArea(tile)))
+				slots.set(slot);
+		}
+		PerformanceCounters.shapesCulled.add(model.getStore().size() - slots.cardinality());
+	}
+
+	/**
+	 * Setter method for whether tiles that need drawing at the same time are drawn in parallel, which they are by default on machines with more than one core.
+	 * @param parallel - true to draw tiles in parallel, false to draw them one after another
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	/**
+	 * Getter method for how many tiles have been drawn, which only goes up when tiles are shown after they changed.
+	 * @return the number of tiles drawn so far
+	 */
+	public long getTilesRendered() {
+		return tilesRendered;
+	}
+
+	/**
+	 * Getter method for how many tiles have been copied onto the canvas, whether or not they had to be drawn first.
+	 * @return the number of tiles shown so far
+	 */
+	public long getTilesShown() {
+		return tilesShown;
+	}
+
+	/**
+	 * Setter method for how many tiles are kept before the ones shown least recently are thrown away.
+	 * @param maxTiles - the most tiles to keep, which should be more than the canvas shows at once
+	 */
+	public void setMaxTiles(int maxTiles) {
+		this.maxTiles = maxTiles;
+		while(tiles.size() > maxTiles)
+			tiles.remove(tiles.keySet().iterator().next());
+	}
+
+	/**
+	 * Getter method for how many tiles are currently kept.
+	 * @return the number of tiles
+	 */
+	public int getTileCount() {
+		return tiles.size();
+	}
+
+	/**
+	 * This method works out the key a tile is kept under from its column and row.
+	 */
+	private static long key(int column, int row) {
+		return ((long) column << 32) | (row & 0xffffffffL);
+	}
+}
@@ -0,0 +1,142 @@
+package Views;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+
+/**
+ * This class is the part of the drawing shown on the canvas: how far it is zoomed in and how far it has been panned.
+ * Model coordinates are scaled by the zoom into canvas pixels, and the origin is the scaled pixel shown at the canvas' top left corner.
+ * The origin is kept in whole pixels so that panning moves already drawn tiles by whole pixels.
+ */
+public class Viewport {
+
+	public static final double MIN_SCALE = 0.05, MAX_SCALE = 20;
+
+	private double scale = 1;
+	private int originX = 0, originY = 0;
+
+	////////////// Getter methods //////////////
+
+	/**
+	 * Getter method for the zoom, how many canvas pixels one model unit takes up.
+	 * @return the zoom
+	 */
+	public double getScale() {
+		return scale;
+	}
+
+	/**
+	 * Getter method for the scaled x coordinate shown at the canvas' left edge.
+	 * @return the origin's x coordinate
+	 */
+	public int getOriginX() {
+		return originX;
+	}
+
+	/**
+	 * Getter method for the scaled y coordinate shown at the canvas' top edge.
+	 * @return the origin's y coordinate
+	 */
+	public int getOriginY() {
+		return originY;
+	}
+
+	/**
+	 * This method gets the transform from model coordinates to canvas pixels.
+	 * @return the transform
+	 */
+	public AffineTransform getTransform() {
+		AffineTransform transform = AffineTransform.getTranslateInstance(-originX, -originY);
+		transform.scale(scale, scale);
+		return transform;
+	}
+
+	////////////// Mapping coordinates //////////////
+
+	/**
+	 * This method maps an x coordinate on the canvas to the model.
+	 * @param x - the canvas x coordinate, such as the mouse's
+	 * @return the model x coordinate
+	 */
+	public int toModelX(int x) {
+		return (int) Math.floor((x + originX) / scale);
+	}
+
+	/**
+	 * This method maps a y coordinate on the canvas to the model.
+	 * @param y - the canvas y coordinate, such as the mouse's
+	 * @return the model y coordinate
+	 */
+	public int toModelY(int y) {
+		return (int) Math.floor((y + originY) / scale);
+	}
+
+	/**
+	 * This method maps an area of the canvas to the smallest area of the model that covers it.
+	 * @param area - the area of the canvas
+	 * @return the area of the model
+	 */
+	public Rectangle toModel(Rectangle area) {
+		int x1 = toModelX(area.x), y1 = toModelY(area.y);
+		int x2 = (int) Math.ceil((area.x + area.width + originX) / scale), y2 = (int) Math.ceil((area.y + area.height + originY) / scale);
+		return new Rectangle(x1, y1, x2 - x1, y2 - y1);
+	}
+
+	/**
+	 * This method maps an area of the model to the smallest area of scaled pixels that covers it, before panning.
+	 * @param area - the area of the model
+	 * @return the area in scaled pixels
+	 */
+	public Rectangle toScaled(Rectangle area) {
+		int x1 = (int) Math.floor(area.x * scale), y1 = (int) Math.floor(area.y * scale);
+		int x2 = (int) Math.ceil((area.x + area.width) * scale), y2 = (int) Math.ceil((area.y + area.height) * scale);
+		return new Rectangle(x1, y1, x2 - x1, y2 - y1);
+	}
+
+	/**
+	 * This method maps an area of the model to the smallest area of the canvas that covers it.
+	 * @param area - the area of the model
+	 * @return the area of the canvas
+	 */
+	public Rectangle toView(Rectangle area) {
+		Rectangle scaled = toScaled(area);
+		scaled.translate(-originX, -originY);
+		return scaled;
+	}
+
+	////////////// Zooming and panning //////////////
+
+	/**
+	 * This method pans the view.
+	 * @param dx - how many canvas pixels to move the drawing right by
+	 * @param dy - how many canvas pixels to move the drawing down by
+	 */
+	public void pan(int dx, int dy) {
+		originX -= dx;
+		originY -= dy;
+	}
+
+	/**
+	 * This method zooms in or out, keeping the model point under a canvas position in the same place.
+	 * The zoom is kept between MIN_SCALE and MAX_SCALE.
+	 * @param factor - how much to multiply the zoom by
+	 * @param x - the canvas x coordinate to zoom around, such as the mouse's
+	 * @param y - the canvas y coordinate to zoom around, such as the mouse's
+	 */
+	public void zoom(double factor, int x, int y) {
+		double newScale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale * factor));
+		double modelX = (x + originX) / scale, modelY = (y + originY) / scale;
+		scale = newScale;
+		originX = (int) Math.round(modelX * scale - x);
+		originY = (int) Math.round(modelY * scale - y);
+	}
+
+	/**
+	 * This method goes back to showing the model at its actual size from its top left corner.
+	 */
+	public void reset() {
+		scale = 1;
+		originX = 0;
+		originY = 0;
+	}
+}